@@ -0,0 +1,15 @@
+package ca.ubc.cs.cpsc210.meetup.exceptions;
+
+// Represent a section that overlaps another section already in a schedule
+
+public class ScheduleConflictException extends RuntimeException {
+
+	/**
+	 * Constructor
+	 * @param msg The message to put in the exception object
+	 */
+	public ScheduleConflictException(String msg) {
+		super(msg);
+	}
+
+}
@@ -6,6 +6,8 @@ import android.app.Fragment;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
@@ -33,36 +35,55 @@ import org.osmdroid.views.overlay.OverlayItem;
 import org.osmdroid.views.overlay.OverlayManager;
 import org.osmdroid.views.overlay.PathOverlay;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
+import java.io.Reader;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 import ca.ubc.cs.cpsc210.meetup.R;
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalSectionInitialization;
+import ca.ubc.cs.cpsc210.meetup.exceptions.ScheduleConflictException;
 import ca.ubc.cs.cpsc210.meetup.model.Building;
-import ca.ubc.cs.cpsc210.meetup.model.Course;
-import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.BuildingFactory;
+import ca.ubc.cs.cpsc210.meetup.model.BuildingMatrix;
 import ca.ubc.cs.cpsc210.meetup.model.Place;
 import ca.ubc.cs.cpsc210.meetup.model.PlaceFactory;
 import ca.ubc.cs.cpsc210.meetup.model.Section;
 import ca.ubc.cs.cpsc210.meetup.model.Student;
 import ca.ubc.cs.cpsc210.meetup.model.Schedule;
 import ca.ubc.cs.cpsc210.meetup.model.StudentManager;
+import ca.ubc.cs.cpsc210.meetup.util.CampusRouter;
+import ca.ubc.cs.cpsc210.meetup.util.CourseCatalogLoader;
 import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+import ca.ubc.cs.cpsc210.meetup.util.OrderedFutures;
+import ca.ubc.cs.cpsc210.meetup.util.PlaceParser;
+import ca.ubc.cs.cpsc210.meetup.util.Route;
+import ca.ubc.cs.cpsc210.meetup.util.RouteCache;
+import ca.ubc.cs.cpsc210.meetup.util.RouteLevels;
+import ca.ubc.cs.cpsc210.meetup.util.RouteParser;
+import ca.ubc.cs.cpsc210.meetup.util.RouteTable;
 import ca.ubc.cs.cpsc210.meetup.util.SchedulePlot;
+import ca.ubc.cs.cpsc210.meetup.util.WalkwayGraph;
+import ca.ubc.cs.cpsc210.meetup.util.WebServiceClient;
 
 
 /**
@@ -78,6 +99,40 @@ public class MapDisplayFragment extends Fragment {
      */
     private final static String LOG_TAG = "MapDisplayFragment";
 
+    /**
+     * Name of the compiled course catalog in the cache directory
+     */
+    private final static String COMPILED_CATALOG_FILE = "course_catalog.bin";
+
+    /**
+     * MapQuest route type for walking between classes, and where fetched routes are kept
+     */
+    private final static String ROUTE_TYPE = "pedestrian";
+    private final static String ROUTE_CACHE_DIRECTORY = "routes";
+
+    /**
+     * Name of the precomputed route table in res/raw, if one has been built off the device
+     * by RouteTableBuilder, and of its copy in the cache directory that is mapped into memory.
+     * None is shipped until there is a detailed footpath extract to build it from.
+     */
+    private final static String ROUTE_TABLE_RESOURCE = "route_table";
+    private final static String ROUTE_TABLE_FILE = "route_table.bin";
+
+    /**
+     * Route legs are fetched in parallel on a small pool of threads that die when idle.
+     * The legs of a route that are not in by the timeout are given up on. While waiting,
+     * the task asking for the route is checked for cancellation every so often.
+     */
+    private final static int MAX_PARALLEL_LEGS = 4;
+    private final static int ROUTE_TIMEOUT_SECONDS = 20;
+    private final static int CANCEL_CHECK_MILLIS = 250;
+    private final static ThreadPoolExecutor ROUTE_EXECUTOR = new ThreadPoolExecutor(MAX_PARALLEL_LEGS,
+            MAX_PARALLEL_LEGS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    static {
+        ROUTE_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * Preference manager to access user preferences
      */
@@ -143,6 +198,23 @@ public class MapDisplayFragment extends Fragment {
      */
     private IMapController mapController;
 
+    /**
+     * Routes already fetched between buildings
+     */
+    private RouteCache routeCache;
+
+    /**
+     * Routes over the bundled campus walkways, for when MapQuest cannot be reached.
+     * Null until the walkways have been loaded.
+     */
+    private volatile CampusRouter campusRouter;
+
+    /**
+     * Precomputed routes between the catalog buildings. Null until loaded, or if
+     * the app was built without a route table.
+     */
+    private volatile RouteTable routeTable;
+
     // ******************** Android methods for starting, resuming, ...
 
     // You should not need to touch this method
@@ -153,16 +225,14 @@ public class MapDisplayFragment extends Fragment {
         sharedPreferences = PreferenceManager
                 .getDefaultSharedPreferences(getActivity());
         scheduleOverlay = new ArrayList<PathOverlay>();
+        routeCache = new RouteCache(new File(getActivity().getCacheDir(), ROUTE_CACHE_DIRECTORY));
 
         // You need to setup the courses for the app to know about. Ideally
         // we would access a web service like the UBC student information system
-        // but that is not currently possible
+        // but that is not currently possible. The "me" schedule is initialized
+        // once the courses have been loaded.
         initializeCourses();
 
-        // Initialize the data for the "me" schedule. Note that this will be
-        // hard-coded for now
-        initializeMySchedule();
-
         // You are going to need an overlay to draw buildings and locations on the map
         buildingOverlay = createBuildingOverlay();
     }
@@ -254,6 +324,9 @@ public class MapDisplayFragment extends Fragment {
      */
     public void showMySchedule() {
 
+        if (!coursesLoaded())
+            return;
+
         Schedule schedule = me.getSchedule();
         activeDay = this.sharedPreferences.getString("dayOfWeek", activeDay);
 
@@ -301,9 +374,26 @@ public class MapDisplayFragment extends Fragment {
         // do this in an asynchronous task. See below in this class for where
         // you need to implement methods for performing the network access
         // and plotting.
+        if (!coursesLoaded())
+            return;
         new GetRandomSchedule().execute();
     }
 
+    /**
+     * Check that the course catalog and "me" have been loaded, telling the user to
+     * wait if they have not
+     *
+     * @return Whether schedules can be shown yet
+     */
+    private boolean coursesLoaded() {
+        if (me == null || studentManager == null) {
+            AlertDialog aDialog = this.createSimpleDialog("Still loading courses, try again in a moment!");
+            aDialog.show();
+            return false;
+        }
+        return true;
+    }
+
 
     /**
      * Clear all schedules on the map
@@ -355,10 +445,7 @@ public class MapDisplayFragment extends Fragment {
         activeTime = this.sharedPreferences.getString("timeOfDay", activeTime);
         activeFood = this.sharedPreferences.getString("typeOfFood", activeFood);
 
-        Set<Place> myplaces;
-        Set<Place> alotplaces;
-
-        if (randomstudents == null || me.getSchedule() == null) {
+        if (randomstudents == null || me == null || me.getSchedule() == null) {
             AlertDialog aDialogue = this.createSimpleDialog("Get a friend first!");
             aDialogue.show();
 
@@ -376,35 +463,33 @@ public class MapDisplayFragment extends Fragment {
                 } else {
                     Schedule myschedule = me.getSchedule();
                     Building myB = myschedule.whereAmI2(activeDay, activeTime);
-                    LatLon mylatlon = myB.getLatLon();
 
                     Schedule alotschedule = i.getSchedule();
                     Building alotb = alotschedule.whereAmI2(activeDay, activeTime);
-                    LatLon alotlatlon = alotb.getLatLon();
-
-                    if (activeFood.equals("No preference")) {
-                        myplaces = placeFactory.findPlacesWithinDistance(mylatlon, Integer.parseInt(activeKm));
-                        alotplaces = placeFactory.findPlacesWithinDistance(alotlatlon, Integer.parseInt(activeKm));
-                    } else {
 
-                        myplaces = placeFactory.findPlacesWithinDistanceWithFood(mylatlon, Integer.parseInt(activeKm), activeFood);
-
-                        alotplaces = placeFactory.findPlacesWithinDistanceWithFood(alotlatlon, Integer.parseInt(activeKm), activeFood);
-                    }
-                    Set<Place> places = new HashSet<Place>();
-                    for (Place p : myplaces) {
-                        if (alotplaces.contains(p)) {
-                            places.add(p);
-                        }
+                    // No place is within reach of both of us if we are more than twice the
+                    // distance apart, which the building matrix answers without a search.
+                    // The extra metre covers the matrix holding distances as floats.
+                    int distance = Integer.parseInt(activeKm);
+                    if (BuildingFactory.getInstance().getDistance(myB, alotb) > 2.0 * distance + 1) {
+                        AlertDialog aDialog = this.createSimpleDialog("You are " + describeWalk(myB, alotb)
+                                + " apart, too far to meet within " + distance + " m of you both!");
+                        aDialog.show();
+                        continue;
                     }
 
+                    List<LatLon> origins = new ArrayList<LatLon>();
+                    origins.add(myB.getLatLon());
+                    origins.add(alotb.getLatLon());
+                    String category = activeFood.equals("No preference") ? null : activeFood;
+                    Set<Place> places = placeFactory.findPlacesWithinDistanceOfAll(origins,
+                            distance, category);
+
 
                     for (Place p : places) {
-                        Double lat = p.getLatLon().getLatitude();
-                        Double lng = p.getLatLon().getLongitude();
-                        GeoPoint geoPoint = new GeoPoint(lat, lng);
+                        GeoPoint geoPoint = toGeoPoint(p.getLatLon());
                         OverlayItem item = new OverlayItem(p.getName(),
-                                "Price: " + p.getPrice() + "\n" +
+                                "Price: " + (p.getPrice() == Place.UNKNOWN_PRICE ? "unknown" : p.getPrice()) + "\n" +
                                         "Type of Food: " + p.getCategory()
                                 , geoPoint);
                         buildingOverlay.addItem(item);
@@ -420,6 +505,25 @@ public class MapDisplayFragment extends Fragment {
     }
 
 
+    /**
+     * Describe how far apart two buildings are, with the walking time if a route
+     * between them has been fetched
+     *
+     * @param from One building
+     * @param to   The other building
+     * @return For example "850 m (about 11 min walk)"
+     */
+    private static String describeWalk(Building from, Building to) {
+        BuildingFactory buildingFactory = BuildingFactory.getInstance();
+        String description = Math.round(buildingFactory.getDistance(from, to)) + " m";
+        double seconds = buildingFactory.getWalkingTime(from, to);
+        if (seconds != BuildingMatrix.UNKNOWN) {
+            long minutes = Math.max(1, Math.round(seconds / 60));
+            description += " (about " + minutes + " min walk)";
+        }
+        return description;
+    }
+
     /**
      * Initialize the PlaceFactory with information from FourSquare
      */
@@ -490,6 +594,166 @@ public class MapDisplayFragment extends Fragment {
         }
     }
 
+    /**
+     * Route through the buildings of a day's sections. The legs are fetched at the same
+     * time on the route executor and put back together in section order. A leg that
+     * fails is left out and the others are kept. All the legs share one deadline; when it
+     * passes, or the task is cancelled, the legs still being fetched are cancelled.
+     *
+     * @param sections The sections in time order
+     * @param task     The task asking, so that the fetches stop if it is cancelled
+     * @return The route, with no points if no leg could be routed
+     */
+    private Route routeThrough(SortedSet<Section> sections, final AsyncTask<?, ?, ?> task) {
+        final List<Building> stops = new ArrayList<Building>(sections.size());
+        for (Section section : sections)
+            stops.add(section.getBuilding());
+
+        final List<Future<Leg>> legs = new ArrayList<Future<Leg>>();
+        for (int i = 1; i < stops.size(); i++)
+            legs.add(ROUTE_EXECUTOR.submit(new FetchLeg(stops.get(i - 1), stops.get(i))));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ROUTE_TIMEOUT_SECONDS);
+        List<Leg> fetched = OrderedFutures.await(legs, deadline, CANCEL_CHECK_MILLIS,
+                new OrderedFutures.Waiter() {
+                    @Override
+                    public boolean isCancelled() {
+                        return task.isCancelled();
+                    }
+                },
+                new OrderedFutures.Listener() {
+                    @Override
+                    public void failed(int i, Throwable cause) {
+                        Log.w(LOG_TAG, "Could not route " + stops.get(i).getName() + " to "
+                                + stops.get(i + 1).getName(), cause);
+                    }
+
+                    @Override
+                    public void timedOut(int i) {
+                        Log.w(LOG_TAG, "Timed out routing from " + stops.get(i).getName() + ", "
+                                + (legs.size() - i) + " legs left out");
+                    }
+                });
+
+        List<Route> routes = new ArrayList<Route>(legs.size());
+        for (int i = 0; i < fetched.size(); i++) {
+            Leg leg = fetched.get(i);
+            if (leg == null)
+                continue;
+            if (leg.fromMapQuest)
+                recordWalkingTime(stops.get(i), stops.get(i + 1), leg.route);
+            routes.add(leg.route);
+        }
+        return Route.join(routes);
+    }
+
+    /**
+     * Fetch the route of one leg, from the route table or the route cache if it is there.
+     * The route table is an optional fast path and is absent by default: only a build that
+     * ships res/raw/route_table.bin has one, and then only once LoadOfflineRouting has
+     * mapped it. Every leg must still be routable without it.
+     */
+    private class FetchLeg implements Callable<Leg> {
+        private Building from;
+        private Building to;
+
+        FetchLeg(Building from, Building to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Leg call() throws IOException {
+            RouteTable table = routeTable;
+            Route route = (table == null) ? null : table.get(from, to);
+            if (route != null)
+                return new Leg(route, false);
+            // Only MapQuest routes are cached
+            route = routeCache.get(from, to, ROUTE_TYPE);
+            if (route != null)
+                return new Leg(route, true);
+            try {
+                route = fetchRoute(routeUrl(from, to));
+            } catch (IOException e) {
+                // Offline or MapQuest is down, so walk the campus walkways instead. The
+                // result is not cached so that the MapQuest route is fetched next time.
+                CampusRouter router = campusRouter;
+                Route offline = (router == null) ? null : router.findRoute(from.getLatLon(), to.getLatLon());
+                if (offline == null)
+                    throw e;
+                return new Leg(offline, false);
+            }
+            routeCache.put(from, to, ROUTE_TYPE, route);
+            return new Leg(route, true);
+        }
+    }
+
+    /**
+     * The route of one leg, and whether it came from MapQuest. The route table and the
+     * campus router only estimate times from their own walkways, so their times are not
+     * recorded as walking times between buildings.
+     */
+    private static class Leg {
+        private Route route;
+        private boolean fromMapQuest;
+
+        Leg(Route route, boolean fromMapQuest) {
+            this.route = route;
+            this.fromMapQuest = fromMapQuest;
+        }
+    }
+
+    /**
+     * Call MapQuest for a route, parsing the response as it arrives
+     *
+     * @param httpRequest The request URL
+     * @return The route
+     * @throws IOException if MapQuest cannot be reached or the response holds no route
+     */
+    private static Route fetchRoute(String httpRequest) throws IOException {
+        return WebServiceClient.getInstance().getShared("route", httpRequest, new WebServiceClient.ResponseHandler<Route>() {
+            @Override
+            public Route handle(Reader body) throws IOException {
+                return RouteParser.parse(body);
+            }
+        });
+    }
+
+    /**
+     * Build the MapQuest request for a route between two buildings
+     *
+     * @param from The building to start at
+     * @param to   The building to end at
+     * @return The request URL
+     */
+    private static String routeUrl(Building from, Building to) {
+        return "http://open.mapquestapi.com/directions/v2/route?key=Fmjtd%7Cluu82luzl1%2Cbg%3Do5-948016&outFormat=json&routeType=" + ROUTE_TYPE + "&timeType=1&enhancedNarrative=false&shapeFormat=raw&generalize=0&locale=en_US&unit=k&from="
+                + from.getLatLon().getLatitude() + "," + from.getLatLon().getLongitude()
+                + "&to=" + to.getLatLon().getLatitude() + "," + to.getLatLon().getLongitude();
+    }
+
+    /**
+     * Remember how long one leg of a route takes, if MapQuest said
+     *
+     * @param from  The building the leg starts at
+     * @param to    The building the leg ends at
+     * @param route The route of the leg
+     */
+    private static void recordWalkingTime(Building from, Building to, Route route) {
+        if (route.getTime() >= 0)
+            BuildingFactory.getInstance().setWalkingTime(from, to, route.getTime());
+    }
+
+    /**
+     * Make a map point from a lat/lon. Both hold microdegrees, so nothing is converted.
+     *
+     * @param latLon The lat/lon
+     * @return The map point
+     */
+    private static GeoPoint toGeoPoint(LatLon latLon) {
+        return new GeoPoint(latLon.getLatitudeE6(), latLon.getLongitudeE6());
+    }
+
     /**
      * Plot a building onto the map
      *
@@ -501,7 +765,7 @@ public class MapDisplayFragment extends Fragment {
     private void plotABuilding(Building building, String title, String msg, int drawableToUse) {
         // CPSC 210 Students: You should not need to touch this method
         OverlayItem buildingItem = new OverlayItem(title, msg,
-                new GeoPoint(building.getLatLon().getLatitude(), building.getLatLon().getLongitude()));
+                toGeoPoint(building.getLatLon()));
 
         //Create new marker
         Drawable icon = this.getResources().getDrawable(drawableToUse);
@@ -654,14 +918,14 @@ public class MapDisplayFragment extends Fragment {
 
 
     /**
-     * Create overlay with a specific color
+     * Create overlay with a specific color for a route
      *
-     * @param colour A string with a hex colour value
+     * @param colour      A string with a hex colour value
+     * @param routeLevels The route, simplified for each zoom level
      */
-    private PathOverlay createPathOverlay(String colour) {
-        // CPSC 210 Students, you should not need to touch this method
-        PathOverlay po = new PathOverlay(Color.parseColor(colour),
-                getActivity());
+    private PathOverlay createPathOverlay(String colour, RouteLevels routeLevels) {
+        PathOverlay po = new RoutePathOverlay(Color.parseColor(colour),
+                getActivity(), routeLevels);
         Paint pathPaint = new Paint();
         pathPaint.setColor(Color.parseColor(colour));
         pathPaint.setStrokeWidth(4.0f);
@@ -705,7 +969,7 @@ public class MapDisplayFragment extends Fragment {
             randomstudents = new HashSet<Student>();
 
             try {
-                JSONObject obj = new JSONObject(this.makeRoutingCall("http://kramer.nss.cs.ubc.ca:8081/getStudent"));
+                JSONObject obj = new JSONObject(WebServiceClient.getInstance().getString("http://kramer.nss.cs.ubc.ca:8081/getStudent"));
 
                 String name = obj.getString("FirstName");
                 String last = obj.getString("LastName");
@@ -721,7 +985,13 @@ public class MapDisplayFragment extends Fragment {
                     String courseName = obj3.getString("CourseName");
                     int courseNumber = obj3.getInt("CourseNumber");
                     String sectionNumber = obj3.getString("SectionName");
-                    studentManager.addSectionToSchedule(Id, courseName, courseNumber, sectionNumber);
+                    try {
+                        studentManager.addSectionToSchedule(Id, courseName, courseNumber, sectionNumber);
+                    } catch (ScheduleConflictException e) {
+                        Log.w(LOG_TAG, "Skipping section", e);
+                    } catch (IllegalSectionInitialization e) {
+                        Log.w(LOG_TAG, "Skipping section", e);
+                    }
                 }
             } catch (MalformedURLException e) {
                 e.printStackTrace();
@@ -732,7 +1002,6 @@ public class MapDisplayFragment extends Fragment {
             }
 
 
-            List<GeoPoint> geoPoints = new ArrayList<GeoPoint>();
             for (Student i : randomstudents) {
 
                 Schedule schedule = i.getSchedule();
@@ -745,40 +1014,7 @@ public class MapDisplayFragment extends Fragment {
                     return null;
                 }
 
-                Iterator<Section> itr = section.iterator();
-                Section s = itr.next();
-                while (itr.hasNext()) {
-                    Section sec = itr.next();
-                    Double toLat = sec.getBuilding().getLatLon().getLatitude();
-                    Double toLng = sec.getBuilding().getLatLon().getLongitude();
-                    Double fromLat = s.getBuilding().getLatLon().getLatitude();
-                    Double fromLng = s.getBuilding().getLatLon().getLongitude();
-
-                    try {
-
-                        JSONObject obj6 = new JSONObject(this.makeRoutingCall("http://open.mapquestapi.com/directions/v2/route?key=Fmjtd%7Cluu82luzl1%2Cbg%3Do5-948016&outFormat=json&routeType=pedestrian&timeType=1&enhancedNarrative=false&shapeFormat=raw&generalize=0&locale=en_US&unit=k&from=" + fromLat + "," + fromLng + "&to=" + toLat + "," + toLng));
-                        JSONObject obj3 = obj6.getJSONObject("route");
-                        JSONObject obj4 = obj3.getJSONObject("shape");
-                        JSONArray array6 = obj4.getJSONArray("shapePoints");
-
-                        for (int e = 0; e < array6.length(); e += 2) {
-                            double lat = array6.getDouble(e);
-                            double lng = array6.getDouble(e + 1);
-                            GeoPoint geoPoint = new GeoPoint(lat, lng);
-                            geoPoints.add(geoPoint);
-                        }
-                    } catch (JSONException e) {
-                        e.printStackTrace();
-                    } catch (MalformedURLException e) {
-                        e.printStackTrace();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    s = sec;
-                }
-
-
-                schedulePlot.setRoute(geoPoints);
+                schedulePlot.setRoute(routeThrough(section, this));
 
 
                 if (schedulePlot.getRoute() == null) {
@@ -791,18 +1027,6 @@ public class MapDisplayFragment extends Fragment {
             return null;
         }
 
-
-        private String makeRoutingCall(String httpRequest) throws MalformedURLException, IOException {
-            URL url = new URL(httpRequest);
-            HttpURLConnection client = (HttpURLConnection) url.openConnection();
-            client.getContent();
-            InputStream in = client.getInputStream();
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            String returnString = br.readLine();
-            client.disconnect();
-            return returnString;
-        }
-
         @Override
         protected void onPostExecute(SchedulePlot schedulePlot) {
             // CPSC 210 students: When this method is called, it will be passed
@@ -818,12 +1042,7 @@ public class MapDisplayFragment extends Fragment {
                 AlertDialog aDialog = MapDisplayFragment.this.createSimpleDialog("No route! Only one class?");
                 aDialog.show();
             } else {
-                PathOverlay po = createPathOverlay(schedulePlot.getColourOfLine());
-                for (int i = 0; schedulePlot.getRoute().size() > i; i++) {
-                    GeoPoint geoPoint = schedulePlot.getRoute().get(i);
-                    po.addPoint(geoPoint);
-
-                }
+                PathOverlay po = createPathOverlay(schedulePlot.getColourOfLine(), schedulePlot.getRouteLevels());
 
                 scheduleOverlay.add(po);
                 OverlayManager om = mapView.getOverlayManager();
@@ -852,50 +1071,13 @@ public class MapDisplayFragment extends Fragment {
 
             // The params[0] element contains the schedulePlot object
             SchedulePlot scheduleToPlot = params[0];
-            List<GeoPoint> geoPoints = new ArrayList<GeoPoint>();
 
 
             Schedule schedule = me.getSchedule();
 
             SortedSet<Section> section = schedule.getSections(activeDay);
-            Iterator<Section> itr = section.iterator();
-            Section s = itr.next();
-            while (itr.hasNext()) {
-                Section sec = itr.next();
-
-                Double toLat = sec.getBuilding().getLatLon().getLatitude();
-                Double toLng = sec.getBuilding().getLatLon().getLongitude();
-                Double fromLat = s.getBuilding().getLatLon().getLatitude();
-                Double fromLng = s.getBuilding().getLatLon().getLongitude();
-
-                try {
-                    JSONObject obj = new JSONObject(this.makeRoutingCall("http://open.mapquestapi.com/directions/v2/route?key=Fmjtd%7Cluu82luzl1%2Cbg%3Do5-948016&outFormat=json&routeType=pedestrian&timeType=1&enhancedNarrative=false&shapeFormat=raw&generalize=0&locale=en_US&unit=k&from=" + fromLat + "," + fromLng + "&to=" + toLat + "," + toLng));
-                    JSONObject obj3 = obj.getJSONObject("route");
-                    JSONObject obj4 = obj3.getJSONObject("shape");
-                    JSONArray array = obj4.getJSONArray("shapePoints");
-
-                    for (int e = 0; e < array.length(); e += 2) {
-                        double lat = array.getDouble(e);
-                        double lng = array.getDouble(e + 1);
-                        GeoPoint geoPoint = new GeoPoint(lat, lng);
-                        geoPoints.add(geoPoint);
-                    }
-
-                } catch (MalformedURLException e) {
-                    Log.e("BadURL", "Hmm", e);
-                } catch (IOException e) {
-                    Log.e("IOException", "L", e);
-                } catch (JSONException e) {
-                    Log.e("JSON", "K", e);
-                } catch (Exception e) {
-                    Log.e("GEN", "ok", e);
-                }
-                s = sec;
-
-
-            }
             // set the route to the route i created;
-            scheduleToPlot.setRoute(geoPoints);
+            scheduleToPlot.setRoute(routeThrough(section, this));
             if (scheduleToPlot.getRoute() == null) {
                 return null;
             } else {
@@ -909,21 +1091,6 @@ public class MapDisplayFragment extends Fragment {
         // schedule. The List<GeoPoint> should be put into
         // scheduleToPlot object.
 
-
-        /**
-         * An example helper method to call a web service
-         */
-        private String makeRoutingCall(String httpRequest) throws MalformedURLException, IOException {
-            URL url = new URL(httpRequest);
-            HttpURLConnection client = (HttpURLConnection) url.openConnection();
-            client.getContent();
-            InputStream in = client.getInputStream();
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            String returnString = br.readLine();
-            client.disconnect();
-            return returnString;
-        }
-
         @Override
         protected void onPostExecute(SchedulePlot schedulePlot) {
 
@@ -932,16 +1099,12 @@ public class MapDisplayFragment extends Fragment {
             // no route to plot, a dialog box should be displayed.
 
             MapDisplayFragment.this.plotBuildings(schedulePlot);
-            if ((schedulePlot == null) || schedulePlot.getRoute().size() == 0) {
+            if ((schedulePlot == null) || schedulePlot.getRoute().getNumberOfPoints() == 0) {
                 AlertDialog aDialog = MapDisplayFragment.this.createSimpleDialog("No route today! Only one class?");
                 aDialog.show();
             } else {
 
-                PathOverlay po = createPathOverlay(schedulePlot.getColourOfLine());
-                for (int i = 0; i < schedulePlot.getRoute().size(); i++) {
-                    GeoPoint geoPoint = schedulePlot.getRoute().get(i);
-                    po.addPoint(geoPoint);
-                }
+                PathOverlay po = createPathOverlay(schedulePlot.getColourOfLine(), schedulePlot.getRouteLevels());
 
                 scheduleOverlay.add(po);
                 OverlayManager om = mapView.getOverlayManager();
@@ -962,202 +1125,213 @@ public class MapDisplayFragment extends Fragment {
 
     // https://api.foursquare.com/v2/venues/explore?client_id=1RWGP1INTAMED321X2FSAUXHQQCHA54CAV2YL2JQLOPYTA14&
     // client_secret=VQCDBRYYS1I3MLZRM2BWG5KYKFW20KW50UYMK35FD4DTSEPW&v=20150320&ll=49.2611,-123.2531&section=food&radius=2000
-    private class GetPlaces extends AsyncTask<Void, Void, String> {
+    private class GetPlaces extends AsyncTask<Void, Void, List<Place>> {
 
-        protected String doInBackground(Void... params) {
-            String sigh = null;
+        protected List<Place> doInBackground(Void... params) {
+            // The places are parsed here as the response arrives, and added to the
+            // PlaceFactory back on the UI thread
             try {
-                sigh = makeRoutingCall("https://api.foursquare.com/v2/venues/explore?client_id" +
+                return WebServiceClient.getInstance().getShared("places", "https://api.foursquare.com/v2/venues/explore?client_id" +
                         "=" + FOUR_SQUARE_CLIENT_ID + "&" +
                         "client_secret=" + FOUR_SQUARE_CLIENT_SECRET + "&v=20150320&" +
-                        "ll=" + UBC_MARTHA_PIPER_FOUNTAIN.getLatitude() + "," + UBC_MARTHA_PIPER_FOUNTAIN.getLongitude() + "&section=food&radius=3000");
+                        "ll=" + UBC_MARTHA_PIPER_FOUNTAIN.getLatitude() + "," + UBC_MARTHA_PIPER_FOUNTAIN.getLongitude() + "&section=food&radius=3000",
+                        new WebServiceClient.ResponseHandler<List<Place>>() {
+                            @Override
+                            public List<Place> handle(Reader body) throws IOException {
+                                return PlaceParser.parse(body);
+                            }
+                        });
             } catch (IOException e) {
-                e.printStackTrace();
+                Log.w(LOG_TAG, "Could not get places from Foursquare", e);
+                return new ArrayList<Place>();
             }
-            // CPSC 210 Students: Complete this method to retrieve a string
-            // of JSON from FourSquare. Return the string from this method
-            System.out.println(sigh);
-            return sigh;
-
         }
 
-        private String makeRoutingCall(String httpRequest) throws MalformedURLException, IOException {
-            URL url = new URL(httpRequest);
-            HttpURLConnection client = (HttpURLConnection) url.openConnection();
-            client.getContent();
-            InputStream in = client.getInputStream();
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            String returnString = br.readLine();
-            client.disconnect();
-            return returnString;
+        protected void onPostExecute(List<Place> places) {
+            for (Place p : places)
+                placeFactory.add(p);
+
+            AlertDialog aDialog = MapDisplayFragment.this.createSimpleDialog("There are " + placeFactory.getPlaces() + " places!");
+            aDialog.show();
+
         }
 
-        protected void onPostExecute(String jSONOfPlaces) {
+        protected PlaceFactory getPlaces() {
 
-            try {
-                JSONObject obj = new JSONObject(jSONOfPlaces);
-                // JSONObject obj = obj1.getJSONObject("JSON");
-                JSONObject response = obj.getJSONObject("response");
-                JSONArray groups = response.getJSONArray("groups");
-                JSONObject zero = groups.getJSONObject(0);
-                JSONArray items = zero.getJSONArray("items");
+            return placeFactory;
+        }
+    }
 
-                for (int i = 0; i < items.length(); i++) {
-                    JSONObject obj4 = items.getJSONObject(i);
+    /**
+     * Initialize the CourseFactory with the course catalog shipped with the app.
+     * The catalog is loaded off the UI thread.
+     */
+    private void initializeCourses() {
+        new LoadCourseCatalog().execute();
+    }
+
+    /**
+     * This asynchronous task is responsible for loading the course catalog into the
+     * CourseFactory and then initializing "me"'s schedule. The text catalog in
+     * res/raw is compiled into a binary copy in the cache directory the first time
+     * the app runs after being installed or updated; later starts load the binary copy.
+     */
+    private class LoadCourseCatalog extends AsyncTask<Void, Void, Integer> {
 
-                    JSONObject venue = obj4.getJSONObject("venue");
-                    String name = venue.getString("name");
+        private Resources resources;
+        private File compiledCatalog;
+        private long installTime;
 
-                    JSONObject location = venue.getJSONObject("location");
-                    Double lat = location.getDouble("lat");
-                    Double lng = location.getDouble("lng");
-                    LatLon cord = new LatLon(lat, lng);
-                    JSONObject price = venue.getJSONObject("price");
-                    int tier = price.getInt("tier");
+        @Override
+        protected void onPreExecute() {
+            resources = getResources();
+            compiledCatalog = new File(getActivity().getCacheDir(), COMPILED_CATALOG_FILE);
+            installTime = getInstallTime();
+        }
 
-                    JSONArray categories = venue.getJSONArray("categories");
-                    JSONObject zeroo = categories.getJSONObject(0);
-                    String category = zeroo.getString("name");
+        @Override
+        protected Integer doInBackground(Void... params) {
+            if (compiledCatalog.exists() && compiledCatalog.lastModified() >= installTime) {
+                try {
+                    return loadCompiledCatalog();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Compiled course catalog unusable, recompiling", e);
+                }
+            }
 
-                    Place p = new Place(name, cord, category, tier);
-                    placeFactory.add(p);
+            try {
+                Reader text = new InputStreamReader(resources.openRawResource(R.raw.course_catalog), "UTF-8");
+                OutputStream out = new FileOutputStream(compiledCatalog);
+                try {
+                    CourseCatalogLoader.compile(text, out);
+                } finally {
+                    out.close();
+                    text.close();
+                }
+                return loadCompiledCatalog();
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Could not compile course catalog, loading text", e);
+                compiledCatalog.delete();
+            }
 
+            try {
+                Reader text = new InputStreamReader(resources.openRawResource(R.raw.course_catalog), "UTF-8");
+                try {
+                    return CourseCatalogLoader.loadText(text);
+                } finally {
+                    text.close();
                 }
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Could not load course catalog", e);
+                return null;
+            }
+        }
 
-            } catch (JSONException e) {
-                e.printStackTrace();
+        private int loadCompiledCatalog() throws IOException {
+            InputStream in = new FileInputStream(compiledCatalog);
+            try {
+                return CourseCatalogLoader.loadBinary(in);
+            } finally {
+                in.close();
             }
+        }
 
-            AlertDialog aDialog = MapDisplayFragment.this.createSimpleDialog("There are " + placeFactory.getPlaces() + " places!");
-            aDialog.show();
+        @Override
+        protected void onPostExecute(Integer numberOfSections) {
+            // Schedules can be shown without the offline routing, so it loads after the catalog
+            new LoadOfflineRouting().execute();
+
+            if (numberOfSections == null) {
+                AlertDialog aDialog = MapDisplayFragment.this.createSimpleDialog("Could not load the courses!");
+                aDialog.show();
+                return;
+            }
+            Log.d(LOG_TAG, "Loaded " + numberOfSections + " sections");
 
+            // Initialize the data for the "me" schedule. Note that this will be
+            // hard-coded for now
+            initializeMySchedule();
         }
+    }
 
-        protected PlaceFactory getPlaces() {
+    /**
+     * This asynchronous task is responsible for loading the campus walkways for
+     * routing offline and, if the app was built with one, the precomputed route
+     * table. The table is copied out of res/raw into the cache directory the first
+     * time the app runs after being installed or updated, and then mapped into memory.
+     */
+    private class LoadOfflineRouting extends AsyncTask<Void, Void, Void> {
 
-            return placeFactory;
+        private Resources resources;
+        private File routeTableFile;
+        private int routeTableId;
+        private long installTime;
+
+        @Override
+        protected void onPreExecute() {
+            resources = getResources();
+            routeTableFile = new File(getActivity().getCacheDir(), ROUTE_TABLE_FILE);
+            routeTableId = resources.getIdentifier(ROUTE_TABLE_RESOURCE, "raw", getActivity().getPackageName());
+            installTime = getInstallTime();
+        }
+
+        @Override
+        protected Void doInBackground(Void... params) {
+            loadCampusRouter();
+            loadRouteTable();
+            return null;
+        }
+
+        private void loadCampusRouter() {
+            try {
+                Reader text = new InputStreamReader(resources.openRawResource(R.raw.campus_walkways), "UTF-8");
+                try {
+                    campusRouter = new CampusRouter(WalkwayGraph.load(text));
+                } finally {
+                    text.close();
+                }
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Could not load campus walkways, routing needs the network", e);
+            }
+        }
+
+        private void loadRouteTable() {
+            if (routeTableId == 0)
+                return;
+            // Raw resources are compressed inside the APK, so copy the table out once to map it
+            try {
+                if (!routeTableFile.exists() || routeTableFile.lastModified() < installTime) {
+                    InputStream in = resources.openRawResource(routeTableId);
+                    OutputStream out = new FileOutputStream(routeTableFile);
+                    try {
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while ((read = in.read(buffer)) != -1)
+                            out.write(buffer, 0, read);
+                    } finally {
+                        out.close();
+                        in.close();
+                    }
+                }
+                routeTable = RouteTable.open(routeTableFile);
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Could not load route table, fetching every route", e);
+                routeTableFile.delete();
+            }
         }
     }
 
     /**
-     * Initialize the CourseFactory with some courses.
+     * @return When the app was last installed or updated, or Long.MAX_VALUE if that is
+     *         not known so that nothing copied out of the app is trusted
      */
-    private void initializeCourses() {
-        // CPSC 210 Students: You can change this data if you desire.
-        CourseFactory courseFactory = CourseFactory.getInstance();
-
-        Building dmpBuilding = new Building("DMP", new LatLon(49.261474, -123.248060));
-
-        Course cpsc210 = courseFactory.getCourse("CPSC", 210);
-        Section aSection = new Section("202", "MWF", "12:00", "12:50", dmpBuilding);
-        cpsc210.addSection(aSection);
-        aSection.setCourse(cpsc210);
-        aSection = new Section("201", "MWF", "16:00", "16:50", dmpBuilding);
-        cpsc210.addSection(aSection);
-        aSection.setCourse(cpsc210);
-        aSection = new Section("BCS", "MWF", "12:00", "12:50", dmpBuilding);
-        cpsc210.addSection(aSection);
-        aSection.setCourse(cpsc210);
-
-        Course engl222 = courseFactory.getCourse("ENGL", 222);
-        aSection = new Section("007", "MWF", "14:00", "14:50", new Building("Buchanan", new LatLon(49.269258, -123.254784)));
-        engl222.addSection(aSection);
-        aSection.setCourse(engl222);
-
-        Course scie220 = courseFactory.getCourse("SCIE", 220);
-        aSection = new Section("200", "MWF", "18:00", "18:50", new Building("Swing", new LatLon(49.262786, -123.255044)));
-        scie220.addSection(aSection);
-        aSection.setCourse(scie220);
-
-        Course phil100 = courseFactory.getCourse("PHIL", 100);
-        aSection = new Section("101", "MWF", "18:00", "18:50", new Building("Barber", new LatLon(49.267442, -123.252471)));
-        phil100.addSection(aSection);
-        aSection.setCourse(phil100);
-
-        Course math200 = courseFactory.getCourse("MATH", 200);
-        aSection = new Section("201", "MWF", "09:00", "09:50", new Building("Buchanan", new LatLon(49.269258, -123.254784)));
-        math200.addSection(aSection);
-        aSection.setCourse(math200);
-
-        Course fren102 = courseFactory.getCourse("FREN", 102);
-        aSection = new Section("202", "MWF", "11:00", "11:50", new Building("Barber", new LatLon(49.267442, -123.252471)));
-        fren102.addSection(aSection);
-        aSection.setCourse(fren102);
-
-        Course japn103 = courseFactory.getCourse("JAPN", 103);
-        aSection = new Section("002", "MWF", "10:00", "11:50", new Building("Buchanan", new LatLon(49.269258, -123.254784)));
-        japn103.addSection(aSection);
-        aSection.setCourse(japn103);
-
-        Course scie113 = courseFactory.getCourse("SCIE", 113);
-        aSection = new Section("213", "MWF", "18:00", "18:50", new Building("Swing", new LatLon(49.262786, -123.255044)));
-        scie113.addSection(aSection);
-        aSection.setCourse(scie113);
-
-        Course micb308 = courseFactory.getCourse("MICB", 308);
-        aSection = new Section("201", "MWF", "12:00", "12:50", new Building("Woodward", new LatLon(49.264704, -123.247536)));
-        micb308.addSection(aSection);
-        aSection.setCourse(micb308);
-
-        Course micb307 = courseFactory.getCourse("MICB", 307);
-        aSection = new Section("201", "MWF", "18:00", "18:50", new Building("Woodward", new LatLon(49.264704, -123.247536)));
-        micb307.addSection(aSection);
-        aSection.setCourse(micb307);
-
-        Course math221 = courseFactory.getCourse("MATH", 221);
-        aSection = new Section("202", "TR", "11:00", "12:20", new Building("Klinck", new LatLon(49.266112, -123.254776)));
-        math221.addSection(aSection);
-        aSection.setCourse(math221);
-
-        Course phys203 = courseFactory.getCourse("PHYS", 203);
-        aSection = new Section("201", "TR", "09:30", "10:50", new Building("Hennings", new LatLon(49.266400, -123.252047)));
-        phys203.addSection(aSection);
-        aSection.setCourse(phys203);
-
-        Course crwr209 = courseFactory.getCourse("CRWR", 209);
-        aSection = new Section("002", "TR", "12:30", "13:50", new Building("Geography", new LatLon(49.266039, -123.256129)));
-        crwr209.addSection(aSection);
-        aSection.setCourse(crwr209);
-
-        Course fnh330 = courseFactory.getCourse("FNH", 330);
-        aSection = new Section("002", "TR", "15:00", "16:20", new Building("MacMillian", new LatLon(49.261167, -123.251157)));
-        fnh330.addSection(aSection);
-        aSection.setCourse(fnh330);
-
-        Course cpsc499 = courseFactory.getCourse("CPSC", 430);
-        aSection = new Section("201", "TR", "16:20", "17:50", new Building("Liu", new LatLon(49.267632, -123.259334)));
-        cpsc499.addSection(aSection);
-        aSection.setCourse(cpsc499);
-
-        Course chem250 = courseFactory.getCourse("CHEM", 250);
-        aSection = new Section("203", "TR", "10:00", "11:20", new Building("Klinck", new LatLon(49.266112, -123.254776)));
-        chem250.addSection(aSection);
-        aSection.setCourse(chem250);
-
-        Course eosc222 = courseFactory.getCourse("EOSC", 222);
-        aSection = new Section("200", "TR", "11:00", "12:20", new Building("ESB", new LatLon(49.262866, -123.25323)));
-        eosc222.addSection(aSection);
-        aSection.setCourse(eosc222);
-
-        Course biol201 = courseFactory.getCourse("BIOL", 201);
-        aSection = new Section("201", "TR", "14:00", "15:20", new Building("BioSci", new LatLon(49.263920, -123.251552)));
-        biol201.addSection(aSection);
-        aSection.setCourse(biol201);
-
-        Course stat241 = courseFactory.getCourse("STAT", 241);
-        aSection = new Section("201", "MWF", "8:00", "8:50", new Building("ESB", new LatLon(49.262866, -123.25323)));
-        stat241.addSection(aSection);
-        aSection.setCourse(stat241);
-
-        Course psyc207 = courseFactory.getCourse("PSYC", 207);
-        aSection = new Section("201", "MWF", "13:00", "13:50", new Building("ESB", new LatLon(49.262866, -123.25323)));
-        psyc207.addSection(aSection);
-        aSection.setCourse(psyc207);
-
-        Course fren111 = courseFactory.getCourse("FREN", 111);
-        aSection = new Section("202", "MWF", "10:00", "10:50", new Building("Buchanan", new LatLon(49.269258, -123.254784)));
-        fren111.addSection(aSection);
-        aSection.setCourse(fren111);
+    private long getInstallTime() {
+        try {
+            return getActivity().getPackageManager().getPackageInfo(
+                    getActivity().getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return Long.MAX_VALUE;
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+package ca.ubc.cs.cpsc210.meetup.map;
+
+import android.content.Context;
+import android.graphics.Canvas;
+
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.PathOverlay;
+
+import ca.ubc.cs.cpsc210.meetup.util.RouteLevels;
+
+/**
+ * A path overlay that draws a route with only as many points as the current
+ * zoom level can show. The points are swapped when the zoom level changes.
+ */
+class RoutePathOverlay extends PathOverlay {
+
+    private RouteLevels routeLevels;
+
+    // The points currently in the path
+    private int[] shownShapeE6;
+
+    /**
+     * Constructor
+     * @param colour The colour of the path
+     * @param context The context of the map
+     * @param routeLevels The route to draw, non-null
+     */
+    RoutePathOverlay(int colour, Context context, RouteLevels routeLevels) {
+        super(colour, context);
+        this.routeLevels = routeLevels;
+    }
+
+    @Override
+    protected void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (!shadow)
+            showZoomLevel(mapView.getZoomLevel());
+        super.draw(canvas, mapView, shadow);
+    }
+
+    private void showZoomLevel(int zoomLevel) {
+        int[] shapeE6 = routeLevels.getShapeE6(zoomLevel);
+        if (shapeE6 == shownShapeE6)
+            return;
+        clearPath();
+        for (int i = 0; i < shapeE6.length; i += 2)
+            addPoint(shapeE6[i], shapeE6[i + 1]);
+        shownShapeE6 = shapeE6;
+    }
+}
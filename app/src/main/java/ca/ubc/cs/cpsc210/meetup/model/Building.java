@@ -10,6 +10,10 @@ public class Building extends Location {
     // The name of the building
     private String name;
 
+    // Index of the building in the BuildingFactory, or NO_ID if it was made elsewhere
+    public static final int NO_ID = -1;
+    private int id = NO_ID;
+
     /**
      * Constructor
      * @param name The name of the building
@@ -34,6 +38,14 @@ public class Building extends Location {
     public String getName() {
         return name;
     }
+
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
     
     // ************** Equals and hashcode **************
 
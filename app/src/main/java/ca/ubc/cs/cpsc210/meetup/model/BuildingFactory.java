@@ -0,0 +1,133 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+/*
+ * Provide a factory for buildings so that each building on campus is
+ * represented by one Building object no matter how many sections use it
+ */
+public class BuildingFactory {
+
+	// Remember the buildings by name
+	private Map<String, Building> buildings;
+
+	// Remember the buildings in the order they were added, a building's id is its index
+	private List<Building> buildingList;
+
+	// Distances and walking times between the buildings, kept up to date as buildings are added
+	private BuildingMatrix matrix;
+
+	// Singleton
+	private static BuildingFactory instance = null;
+
+	/**
+	 * Retrieve the one and only one factory instance
+	 */
+	public static synchronized BuildingFactory getInstance() {
+		if (instance == null)
+			instance = new BuildingFactory();
+		return instance;
+	}
+
+	/**
+	 * Reset for testing
+	 */
+	public static synchronized void reset() {
+		instance = null;
+	}
+
+	/**
+	 * Constructor. Only the singleton need access
+	 */
+	protected BuildingFactory() {
+		buildings = new HashMap<String, Building>();
+		buildingList = new ArrayList<Building>();
+		matrix = new BuildingMatrix();
+	}
+
+	/**
+	 * Retrieve a building, create the building if it hasn't been seen before
+	 * @param name The name of the building
+	 * @param latLon Where the building is, only used if the building is new
+	 * @return The one building with that name
+	 */
+	public synchronized Building getBuilding(String name, LatLon latLon) {
+		Building building = buildings.get(name);
+		if (building == null) {
+			building = new Building(name, latLon);
+			building.setId(matrix.add(latLon));
+			buildings.put(name, building);
+			buildingList.add(building);
+		}
+		return building;
+	}
+
+	/**
+	 * Retrieve a building without creating it
+	 * @param name The name of the building
+	 * @return The building or null if it hasn't been seen before
+	 */
+	public synchronized Building findBuilding(String name) {
+		return buildings.get(name);
+	}
+
+	/**
+	 * Retrieve all buildings in the order they were added
+	 */
+	public synchronized List<Building> getBuildings() {
+		return Collections.unmodifiableList(new ArrayList<Building>(buildingList));
+	}
+
+	/**
+	 * Retrieve the distance between two buildings
+	 * @param a One building
+	 * @param b The other building
+	 * @return The distance in metres, looked up if both buildings came from this factory
+	 */
+	public synchronized double getDistance(Building a, Building b) {
+		if (isKnown(a) && isKnown(b))
+			return matrix.getDistance(a.getId(), b.getId());
+		return LatLon.distanceBetweenTwoLatLon(a.getLatLon(), b.getLatLon());
+	}
+
+	/**
+	 * Retrieve the walking time between two buildings
+	 * @param a One building
+	 * @param b The other building
+	 * @return The walking time in seconds, or BuildingMatrix.UNKNOWN if no route between them has been seen
+	 */
+	public synchronized double getWalkingTime(Building a, Building b) {
+		if (isKnown(a) && isKnown(b))
+			return matrix.getWalkingTime(a.getId(), b.getId());
+		return BuildingMatrix.UNKNOWN;
+	}
+
+	/**
+	 * Remember the walking time between two buildings, from a route between them
+	 * @param a One building
+	 * @param b The other building
+	 * @param seconds The walking time in seconds, >= 0
+	 */
+	public synchronized void setWalkingTime(Building a, Building b, double seconds) {
+		if (isKnown(a) && isKnown(b))
+			matrix.setWalkingTime(a.getId(), b.getId(), (float) seconds);
+	}
+
+	/**
+	 * Is this the factory's own object for the building
+	 */
+	private boolean isKnown(Building building) {
+		int id = building.getId();
+		return id != Building.NO_ID && id < buildingList.size() && buildingList.get(id) == building;
+	}
+
+	public synchronized int size() {
+		return buildingList.size();
+	}
+}
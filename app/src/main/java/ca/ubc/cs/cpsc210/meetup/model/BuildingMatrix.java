@@ -0,0 +1,115 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import java.util.Arrays;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+/*
+ * Represent the distance and the walking time between every pair of buildings,
+ * indexed by building id. Both are symmetric, so only the lower triangle is
+ * kept, packed into one array: the pair (i, j) with i > j is at i * (i - 1) / 2 + j.
+ * Adding a building works out its distances to all earlier buildings, so the
+ * matrix is always complete and every lookup is constant time.
+ */
+public class BuildingMatrix {
+
+    // Walking time of a pair with no route data yet
+    public static final float UNKNOWN = -1;
+
+    private int size;
+    private double[] lats;
+    private double[] lons;
+
+    // Distances in metres and walking times in seconds
+    private float[] distances;
+    private float[] walkingTimes;
+
+    /**
+     * Constructor
+     */
+    public BuildingMatrix() {
+        lats = new double[16];
+        lons = new double[16];
+        distances = new float[pairs(16)];
+        walkingTimes = new float[pairs(16)];
+        Arrays.fill(walkingTimes, UNKNOWN);
+    }
+
+    /**
+     * Add a building and work out its distance to every building already added
+     * @param latLon Where the building is
+     * @return The id of the building
+     */
+    public int add(LatLon latLon) {
+        if (size == lats.length)
+            grow();
+        int id = size;
+        lats[id] = latLon.getLatitude();
+        lons[id] = latLon.getLongitude();
+        int row = pairs(id);
+        for (int j = 0; j < id; j++)
+            distances[row + j] = (float) LatLon.distanceBetween(lats[id], lons[id], lats[j], lons[j]);
+        size++;
+        return id;
+    }
+
+    /**
+     * Retrieve the distance between two buildings
+     * @param a The id of one building
+     * @param b The id of the other building
+     * @return The distance in metres
+     */
+    public float getDistance(int a, int b) {
+        if (a == b)
+            return 0;
+        return distances[index(a, b)];
+    }
+
+    /**
+     * Retrieve the walking time between two buildings
+     * @param a The id of one building
+     * @param b The id of the other building
+     * @return The walking time in seconds, or UNKNOWN if there is no route data for the pair
+     */
+    public float getWalkingTime(int a, int b) {
+        if (a == b)
+            return 0;
+        return walkingTimes[index(a, b)];
+    }
+
+    /**
+     * Remember the walking time between two buildings, from route data
+     * @param a The id of one building
+     * @param b The id of the other building
+     * @param seconds The walking time in seconds, >= 0
+     */
+    public void setWalkingTime(int a, int b, float seconds) {
+        if (a != b)
+            walkingTimes[index(a, b)] = seconds;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = lats.length * 2;
+        lats = Arrays.copyOf(lats, capacity);
+        lons = Arrays.copyOf(lons, capacity);
+        distances = Arrays.copyOf(distances, pairs(capacity));
+        int known = walkingTimes.length;
+        walkingTimes = Arrays.copyOf(walkingTimes, pairs(capacity));
+        Arrays.fill(walkingTimes, known, walkingTimes.length, UNKNOWN);
+    }
+
+    private int index(int a, int b) {
+        if (a < 0 || b < 0 || a >= size || b >= size)
+            throw new IndexOutOfBoundsException("No building with id " + (a < 0 || a >= size ? a : b));
+        return (a > b) ? pairs(a) + b : pairs(b) + a;
+    }
+
+    // The number of pairs among n buildings, which is also where row n starts
+    private static int pairs(int n) {
+        return n * (n - 1) / 2;
+    }
+}
@@ -1,7 +1,7 @@
 package ca.ubc.cs.cpsc210.meetup.model;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /*
  * Represent a course a student may take
@@ -12,8 +12,8 @@ public class Course {
 	private String code;
 	private int number;
 	
-	// All sections offered this term for the course
-	private Set<Section> sections;
+	// All sections offered this term for the course, keyed by section name
+	private ConcurrentMap<String, Section> sections;
 
     /**
      * Constructor
@@ -23,16 +23,16 @@ public class Course {
 	public Course(String code, int number) {
 		this.code = code;
 		this.number = number;
-		sections = new HashSet<Section>();
+		sections = new ConcurrentHashMap<String, Section>();
 	}
 
 	/**
-	 * Add a section to the course
+	 * Add a section to the course. If the course already has a section
+	 * with the same name, that section is kept.
      * @param section The non-null section to add
 	 */
 	public void addSection(Section section) {
-		if (!sections.contains(section))
-			sections.add(section);
+		sections.putIfAbsent(section.getName(), section);
 	}
 	
 	// ************** Getters ****************
@@ -50,14 +50,12 @@ public class Course {
 	}
 	
 	public Section getSection(String sectionId) {
-		for (Section section: sections) {
-			if (section.getName().equals(sectionId))
-				return section;
-		}
-		return null;
+		return sections.get(sectionId);
 	}
 	
 	// ************** Equals and Hashcode ****************
+	// A course is identified by its code and number only, so its hash code
+	// does not change as sections are added
 
     @Override
     public String toString() {
@@ -77,8 +75,6 @@ public class Course {
 			return false;
 		if (!code.equals(course.code))
 			return false;
-		if (!sections.equals(course.sections))
-			return false;
 
 		return true;
 	}
@@ -87,7 +83,6 @@ public class Course {
 	public int hashCode() {
 		int result = code.hashCode();
 		result = 31 * result + number;
-		result = 31 * result + sections.hashCode();
 		return result;
 	}
 }
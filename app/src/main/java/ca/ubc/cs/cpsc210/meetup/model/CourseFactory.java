@@ -1,34 +1,44 @@
 package ca.ubc.cs.cpsc210.meetup.model;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ca.ubc.cs.cpsc210.meetup.util.ConcurrentIntMap;
 
 /**
- * A factory for courses
+ * A factory for courses. The factory is a catalog indexed by course code and
+ * number, and may be used from several threads at once.
  */
 public class CourseFactory {
 
-	// Remember all the courses that have been defined. The key is the course code (e.g., all CPSC courses)
-	private Map<String, Set<Course>> courses;
-	
+	// Remember all the courses that have been defined. The outer key is the course code
+	// (e.g., all CPSC courses) and the inner key is the course number.
+	private ConcurrentMap<String, ConcurrentIntMap<Course>> courses;
+
 	// Singleton pattern
-	private static CourseFactory instance = null;
-	
+	private static volatile CourseFactory instance = null;
+
 	/**
 	 * Return the factory instance
 	 */
 	public static CourseFactory getInstance() {
-		if (instance == null)
-			instance = new CourseFactory();
-		return instance;
+		CourseFactory factory = instance;
+		if (factory == null) {
+			synchronized (CourseFactory.class) {
+				factory = instance;
+				if (factory == null) {
+					factory = new CourseFactory();
+					instance = factory;
+				}
+			}
+		}
+		return factory;
 	}
-	
+
 	/**
 	 * Reset for testing
 	 */
-	public static void reset() {
+	public static synchronized void reset() {
 		instance = null;
 	}
 
@@ -36,7 +46,7 @@ public class CourseFactory {
 	 * Constructor. Only the singleton needs to create.
 	 */
 	protected CourseFactory() {
-		courses = new HashMap<String, Set<Course>>();
+		courses = new ConcurrentHashMap<String, ConcurrentIntMap<Course>>();
 	}
 
 	/**
@@ -45,46 +55,56 @@ public class CourseFactory {
      * @param number The number of the course
 	 */
 	public Course getCourse(String code, int number) {
-		// Get the courses with a given code from the map
-		Set<Course> coursesWithCode = courses.get(code);
+		ConcurrentIntMap<Course> coursesWithCode = getCoursesWithCode(code);
+		Course course = coursesWithCode.get(number);
+		if (course != null)
+			return course;
 
-		// The course doesn't exist, add it
-		if (coursesWithCode == null)
-			return addCourse(code, number);
-		
-		// Is there a course with the given number?
-		Course courseOfInterest = null;
-		for (Course aCourse : coursesWithCode) {
-			if (aCourse.getNumber() == number)
-				courseOfInterest = aCourse;
-		}
+		// The course doesn't exist, add it unless another thread just did
+		Course newCourse = new Course(code, number);
+		course = coursesWithCode.putIfAbsent(number, newCourse);
+		return (course != null) ? course : newCourse;
+	}
 
-		if (courseOfInterest != null) {
-			// There is a course, return it
-			return courseOfInterest;
-		} else {
-			return addCourse(code, number);
-		}
+	/**
+	 * Retrieve a course without creating it
+	 * @param code The four-letter code of a course
+	 * @param number The number of the course
+	 * @return The course or null if it hasn't been seen before
+	 */
+	public Course findCourse(String code, int number) {
+		ConcurrentIntMap<Course> coursesWithCode = courses.get(code);
+		if (coursesWithCode == null)
+			return null;
+		return coursesWithCode.get(number);
+	}
 
+	/**
+	 * Retrieve a section of a course
+	 * @param code The four-letter code of a course
+	 * @param number The number of the course
+	 * @param sectionId The name of the section
+	 * @return The section or null if the course or section hasn't been seen before
+	 */
+	public Section getSection(String code, int number, String sectionId) {
+		Course course = findCourse(code, number);
+		if (course == null)
+			return null;
+		return course.getSection(sectionId);
 	}
-	
+
 	/**
-	 * Helper method to add a course
+	 * Helper method to get the courses with a code, creating the index entry if needed
 	 */
-	private Course addCourse(String code, int number) {
-		// Create the Course
-		Course course = new Course(code, number);
-		
-		// See if we need to add it to the set of courses keyed only on four letter code
-		if (courses.containsKey(code)) {
-			Set<Course> coursesWithCode = courses.get(code);
-			coursesWithCode.add(course);
-		} else {
-			Set<Course> coursesWithCode = new HashSet<Course>();
-			coursesWithCode.add(course);
-			courses.put(code, coursesWithCode);
+	private ConcurrentIntMap<Course> getCoursesWithCode(String code) {
+		ConcurrentIntMap<Course> coursesWithCode = courses.get(code);
+		if (coursesWithCode == null) {
+			ConcurrentIntMap<Course> newCourses = new ConcurrentIntMap<Course>();
+			coursesWithCode = courses.putIfAbsent(code, newCourses);
+			if (coursesWithCode == null)
+				coursesWithCode = newCourses;
 		}
-		return course;
+		return coursesWithCode;
 	}
-	
+
 }
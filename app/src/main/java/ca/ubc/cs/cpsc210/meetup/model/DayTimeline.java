@@ -0,0 +1,151 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+/*
+ * Represent the busy/free occupancy of one day of a schedule as a bitmap
+ * with one bit per five-minute slot from 00:00 to 24:00. A section makes
+ * every slot it touches busy, so times are rounded outwards to the slot grid.
+ */
+public class DayTimeline {
+
+    // Granularity of the bitmap
+    public static final int MINUTES_PER_SLOT = 5;
+    public static final int SLOTS_PER_DAY = (24 * 60) / MINUTES_PER_SLOT;
+    public static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+
+    // One bit per slot, set when the slot is taken by a section
+    private long[] busy;
+
+    // Is nothing scheduled
+    private boolean empty;
+
+    /**
+     * Constructor
+     */
+    public DayTimeline() {
+        busy = new long[WORDS_PER_DAY];
+        empty = true;
+    }
+
+    /**
+     * Mark the slots taken by a section as busy
+     * @param section The section to add, non-null
+     */
+    public void add(Section section) {
+        empty = false;
+        int from = slotOf(section.getCourseTime().getStartMinuteOfDay());
+        int to = slotCeiling(section.getCourseTime().getEndMinuteOfDay());
+        for (int slot = from; slot < to; slot++) {
+            busy[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * Is nothing scheduled on this day
+     * @return True if there are no sections
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Determine if there is no section during the given number of minutes starting at minuteOfDay.
+     * Time past midnight counts as free.
+     * @param minuteOfDay Minutes since midnight at which the break would start
+     * @param minutes The length of the break in minutes
+     * @return True if free for the whole break
+     */
+    public boolean isFreeFor(int minuteOfDay, int minutes) {
+        int from = slotOf(minuteOfDay);
+        int to = Math.min(slotCeiling(minuteOfDay + minutes), SLOTS_PER_DAY);
+        if (from >= to)
+            return true;
+        int nextBusy = nextBusySlot(from);
+        return nextBusy < 0 || nextBusy >= to;
+    }
+
+    /**
+     * Find the first busy slot at or after fromSlot
+     * @param fromSlot The slot to start looking at
+     * @return The slot or -1 if none
+     */
+    public int nextBusySlot(int fromSlot) {
+        if (fromSlot >= SLOTS_PER_DAY)
+            return -1;
+        int w = fromSlot >>> 6;
+        long word = busy[w] & (-1L << fromSlot);
+        while (true) {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == WORDS_PER_DAY)
+                return -1;
+            word = busy[w];
+        }
+    }
+
+    /**
+     * Find the first free slot at or after fromSlot
+     * @param fromSlot The slot to start looking at
+     * @return The slot or SLOTS_PER_DAY if the rest of the day is busy
+     */
+    public int nextFreeSlot(int fromSlot) {
+        if (fromSlot >= SLOTS_PER_DAY)
+            return SLOTS_PER_DAY;
+        int w = fromSlot >>> 6;
+        long word = ~busy[w] & (-1L << fromSlot);
+        while (true) {
+            if (word != 0)
+                return Math.min((w << 6) + Long.numberOfTrailingZeros(word), SLOTS_PER_DAY);
+            if (++w == WORDS_PER_DAY)
+                return SLOTS_PER_DAY;
+            word = ~busy[w];
+        }
+    }
+
+    /**
+     * Find the last busy slot at or before fromSlot
+     * @param fromSlot The slot to start looking at
+     * @return The slot or -1 if none
+     */
+    public int previousBusySlot(int fromSlot) {
+        if (fromSlot < 0)
+            return -1;
+        if (fromSlot >= SLOTS_PER_DAY)
+            fromSlot = SLOTS_PER_DAY - 1;
+        int w = fromSlot >>> 6;
+        long word = busy[w] & (-1L >>> (63 - (fromSlot & 63)));
+        while (true) {
+            if (word != 0)
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (--w < 0)
+                return -1;
+            word = busy[w];
+        }
+    }
+
+    /**
+     * Retrieve one 64-slot word of the bitmap
+     * @param index The word, 0 <= index < WORDS_PER_DAY
+     * @return The bits of the word, slot (index * 64 + i) is bit i
+     */
+    public long getWord(int index) {
+        return busy[index];
+    }
+
+    /**
+     * The slot containing a minute of the day
+     */
+    public static int slotOf(int minuteOfDay) {
+        if (minuteOfDay <= 0)
+            return 0;
+        return Math.min(minuteOfDay / MINUTES_PER_SLOT, SLOTS_PER_DAY);
+    }
+
+    /**
+     * The first slot starting at or after a minute of the day
+     */
+    public static int slotCeiling(int minuteOfDay) {
+        if (minuteOfDay <= 0)
+            return 0;
+        return Math.min((minuteOfDay + MINUTES_PER_SLOT - 1) / MINUTES_PER_SLOT, SLOTS_PER_DAY);
+    }
+}
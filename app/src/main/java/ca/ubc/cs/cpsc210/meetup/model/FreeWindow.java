@@ -0,0 +1,92 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import ca.ubc.cs.cpsc210.meetup.util.CourseTime;
+
+/*
+ * Represent a stretch of a day during which enough students are free to meet up
+ */
+public class FreeWindow implements Comparable<FreeWindow> {
+
+    // Minutes since midnight at which the window starts and ends
+    private int startMinute;
+    private int endMinute;
+
+    // The fewest students free at any point in the window
+    private int numberFree;
+
+    /**
+     * Constructor
+     * @param startMinute Minutes since midnight at which the window starts
+     * @param endMinute Minutes since midnight at which the window ends, > startMinute
+     * @param numberFree The fewest students free at any point in the window
+     */
+    public FreeWindow(int startMinute, int endMinute, int numberFree) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.numberFree = numberFree;
+    }
+
+    // ************** Getters ****************
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public int getEndMinute() {
+        return endMinute;
+    }
+
+    public int getLengthInMinutes() {
+        return endMinute - startMinute;
+    }
+
+    public int getNumberFree() {
+        return numberFree;
+    }
+
+    /**
+     * Longer windows come first, ties are broken by earlier start
+     */
+    @Override
+    public int compareTo(FreeWindow other) {
+        if (getLengthInMinutes() != other.getLengthInMinutes())
+            return other.getLengthInMinutes() - getLengthInMinutes();
+        return startMinute - other.startMinute;
+    }
+
+    @Override
+    public String toString() {
+        return CourseTime.formatMinuteOfDay(startMinute) + " to "
+                + CourseTime.formatMinuteOfDay(endMinute) + " (" + numberFree + " free)";
+    }
+
+    // ************** Equals and hashcode **************
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + startMinute;
+        result = prime * result + endMinute;
+        result = prime * result + numberFree;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        FreeWindow other = (FreeWindow) obj;
+        if (startMinute != other.startMinute)
+            return false;
+        if (endMinute != other.endMinute)
+            return false;
+        if (numberFree != other.numberFree)
+            return false;
+        return true;
+    }
+}
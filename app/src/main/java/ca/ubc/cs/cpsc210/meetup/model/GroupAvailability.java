@@ -0,0 +1,96 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Find the windows in a day in which a group of students can meet up by
+ * intersecting the busy/free timelines of all of their schedules
+ */
+public class GroupAvailability {
+
+    /**
+     * Find every window of at least an hour on a given day in which all students are free
+     * @param students The students who want to meet up, non-null
+     * @param dayOfWeek The day of week of interest, "MWF" or "TR"
+     * @return The windows, longest first, or none if there are no students
+     */
+    public static List<FreeWindow> findFreeWindows(Collection<Student> students, String dayOfWeek) {
+        if (students.isEmpty())
+            return new ArrayList<FreeWindow>();
+        return findFreeWindows(students, dayOfWeek, students.size());
+    }
+
+    /**
+     * Find every window of at least an hour on a given day in which at least minimumFree students are free
+     * @param students The students who want to meet up, non-null
+     * @param dayOfWeek The day of week of interest, "MWF" or "TR"
+     * @param minimumFree How many of the students must be free, > 0 and <= the number of students
+     * @return The windows, longest first
+     * @throws IllegalArgumentException if minimumFree is out of range
+     */
+    public static List<FreeWindow> findFreeWindows(Collection<Student> students, String dayOfWeek,
+                                                   int minimumFree) {
+        return findFreeWindows(students, dayOfWeek, minimumFree, 0, 24 * 60);
+    }
+
+    /**
+     * Find every window of at least an hour between fromMinute and toMinute on a given day
+     * in which at least minimumFree students are free
+     * @param students The students who want to meet up, non-null
+     * @param dayOfWeek The day of week of interest, "MWF" or "TR"
+     * @param minimumFree How many of the students must be free, > 0 and <= the number of students
+     * @param fromMinute Minutes since midnight at which to start looking
+     * @param toMinute Minutes since midnight at which to stop looking
+     * @return The windows, longest first
+     * @throws IllegalArgumentException if minimumFree is out of range
+     */
+    public static List<FreeWindow> findFreeWindows(Collection<Student> students, String dayOfWeek,
+                                                   int minimumFree, int fromMinute, int toMinute) {
+        int numberOfStudents = students.size();
+        if (minimumFree < 1 || minimumFree > numberOfStudents)
+            throw new IllegalArgumentException("minimumFree must be from 1 to " + numberOfStudents
+                    + ", not " + minimumFree);
+        List<FreeWindow> windows = new ArrayList<FreeWindow>();
+
+        // Count, for every slot, how many students are busy in it. Only busy bits are visited.
+        int[] busyCount = new int[DayTimeline.SLOTS_PER_DAY];
+        for (Student student : students) {
+            DayTimeline timeline = student.getSchedule().getTimelineForDayOfWeek(dayOfWeek);
+            for (int w = 0; w < DayTimeline.WORDS_PER_DAY; w++) {
+                long word = timeline.getWord(w);
+                while (word != 0) {
+                    busyCount[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+                    word &= word - 1;
+                }
+            }
+        }
+
+        int fromSlot = DayTimeline.slotCeiling(fromMinute);
+        int toSlot = DayTimeline.slotOf(toMinute);
+        int minimumSlots = DayTimeline.slotCeiling(Schedule.BREAK_LENGTH_IN_MINUTES);
+        int runStart = -1;
+        int runFewestFree = numberOfStudents;
+        for (int slot = fromSlot; slot <= toSlot; slot++) {
+            int free = (slot < toSlot) ? numberOfStudents - busyCount[slot] : -1;
+            if (free >= minimumFree) {
+                if (runStart < 0) {
+                    runStart = slot;
+                    runFewestFree = free;
+                } else if (free < runFewestFree) {
+                    runFewestFree = free;
+                }
+            } else if (runStart >= 0) {
+                if (slot - runStart >= minimumSlots)
+                    windows.add(new FreeWindow(runStart * DayTimeline.MINUTES_PER_SLOT,
+                            slot * DayTimeline.MINUTES_PER_SLOT, runFewestFree));
+                runStart = -1;
+            }
+        }
+
+        Collections.sort(windows);
+        return windows;
+    }
+}
@@ -0,0 +1,11 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+/*
+ * Represent how a group scores a meetup place from everyone's walk to it
+ */
+public enum GroupObjective {
+    // The longest walk anyone in the group has to make
+    MAX_DISTANCE,
+    // The walks of everyone in the group added together
+    SUM_DISTANCE
+}
@@ -3,6 +3,7 @@ package ca.ubc.cs.cpsc210.meetup.model;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -17,11 +18,14 @@ public class Place extends Location {
     private String name;
    // The category of the place
     private String category;
-    // The price of a place, with 0 being the cheapest
+    // A price that is not known
+    public static final int UNKNOWN_PRICE = -1;
+
+    // The price of a place, with 0 being the cheapest, or UNKNOWN_PRICE
     private int price;
 
-    // Tags describing place
-    private Set<String> tags;
+    // Tags describing place, one bit per tag as numbered by the TagDictionary
+    private long tags;
 
     /**
      * Constructor
@@ -56,10 +60,21 @@ public class Place extends Location {
     public Place(String placeName, LatLon latLon) {
         super(latLon);
         name = placeName;
+        price = UNKNOWN_PRICE;
     }
 
+    /**
+     * Constructor
+     * @param placeName The name of the place
+     * @param latLon The latitude and longitude of the place
+     * @param category The category of the place, or null if not known
+     * @param price The price tier, >= 0 with 0 being the cheapest, or UNKNOWN_PRICE
+     * @throws IllegalArgumentException if the price is any other negative number
+     */
     public Place(String placeName, LatLon latLon, String category, int price) {
         super(latLon);
+        if (price < 0 && price != UNKNOWN_PRICE)
+            throw new IllegalArgumentException("Price must be >= 0 or UNKNOWN_PRICE, not " + price);
         name = placeName;
         this.category = category;
         this.price = price;
@@ -73,7 +88,7 @@ public class Place extends Location {
      * @param tag The tag to add, non-null
      */
     public void addTag(String tag) {
-        tags.add(tag);
+        tags |= TagDictionary.getInstance().getMask(tag);
     }
 
     /**
@@ -82,7 +97,17 @@ public class Place extends Location {
      * @return true if found, false otherwise
      */
     public boolean containsTag(String tag) {
-        return tags.contains(tag);
+        long mask = TagDictionary.getInstance().findMask(tag);
+        return mask != 0 && (tags & mask) != 0;
+    }
+
+    /**
+     * Determine if this place has every tag in a mask
+     * @param mask The tags to look for, as a TagDictionary mask
+     * @return true if all found, false otherwise
+     */
+    public boolean containsTags(long mask) {
+        return (tags & mask) == mask;
     }
 
 
@@ -100,4 +125,8 @@ public class Place extends Location {
         return price;
     }
 
+    public List<String> getTags() {
+        return TagDictionary.getInstance().getTags(tags);
+    }
+
 }
@@ -0,0 +1,82 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+/*
+ * Represent the places of one grid cell column by column: what a search looks
+ * at (latitude and longitude in microdegrees, and category id) is kept in parallel primitive
+ * arrays so a scan runs over contiguous memory, and the Place objects themselves
+ * are only touched for the places a search returns.
+ */
+class PlaceColumns {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int size;
+    private int[] latsE6;
+    private int[] lonsE6;
+    private int[] categories;
+    private Place[] places;
+
+    /**
+     * Constructor
+     */
+    PlaceColumns() {
+        latsE6 = new int[INITIAL_CAPACITY];
+        lonsE6 = new int[INITIAL_CAPACITY];
+        categories = new int[INITIAL_CAPACITY];
+        places = new Place[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add a place
+     * @param place The place, non-null
+     * @param category The id of the place's category
+     */
+    void add(Place place, int category) {
+        if (size == places.length)
+            grow();
+        latsE6[size] = place.getLatLon().getLatitudeE6();
+        lonsE6[size] = place.getLatLon().getLongitudeE6();
+        categories[size] = category;
+        places[size] = place;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = places.length * 2;
+        int[] newLats = new int[capacity];
+        int[] newLons = new int[capacity];
+        int[] newCategories = new int[capacity];
+        Place[] newPlaces = new Place[capacity];
+        System.arraycopy(latsE6, 0, newLats, 0, size);
+        System.arraycopy(lonsE6, 0, newLons, 0, size);
+        System.arraycopy(categories, 0, newCategories, 0, size);
+        System.arraycopy(places, 0, newPlaces, 0, size);
+        latsE6 = newLats;
+        lonsE6 = newLons;
+        categories = newCategories;
+        places = newPlaces;
+    }
+
+    // ************** Getters ****************
+
+    int size() {
+        return size;
+    }
+
+    double getLatitude(int i) {
+        // The same arithmetic as LatLon.getLatitude, so searches see the same values
+        return latsE6[i] / 1E6;
+    }
+
+    double getLongitude(int i) {
+        return lonsE6[i] / 1E6;
+    }
+
+    int getCategory(int i) {
+        return categories[i];
+    }
+
+    Place getPlace(int i) {
+        return places[i];
+    }
+}
@@ -0,0 +1,37 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+/*
+ * Represent a place together with how far it is from some point of interest
+ */
+public class PlaceDistance implements Comparable<PlaceDistance> {
+
+    private Place place;
+    // Distance in metres
+    private double distance;
+
+    /**
+     * Constructor
+     * @param place The place, non-null
+     * @param distance How far the place is in metres
+     */
+    public PlaceDistance(Place place, double distance) {
+        this.place = place;
+        this.distance = distance;
+    }
+
+    public Place getPlace() {
+        return place;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Nearer places come first
+     */
+    @Override
+    public int compareTo(PlaceDistance other) {
+        return Double.compare(distance, other.distance);
+    }
+}
@@ -1,8 +1,10 @@
 package ca.ubc.cs.cpsc210.meetup.model;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,6 +18,17 @@ public class PlaceFactory {
 	// Remember the places with a given name.
 	private Map<String, Set<Place>> places;
 
+	// Index of the places by where they are
+	private PlaceGrid grid;
+
+	// The places of each category, of each price tier indexed by tier, and of each
+	// price tier within each category. A query naming a category or a price limit only
+	// looks at the places that can match. Places whose price is unknown are in no price
+	// tier, so a price limit leaves them out.
+	private Map<String, PlaceGrid> gridsByCategory;
+	private List<PlaceGrid> gridsByPrice;
+	private Map<String, List<PlaceGrid>> gridsByCategoryAndPrice;
+
 	// Singleton
 	private static PlaceFactory instance = null;
 
@@ -34,6 +47,10 @@ public class PlaceFactory {
 	 */
 	protected PlaceFactory() {
 		places = new HashMap<String, Set<Place>>();
+		grid = new PlaceGrid();
+		gridsByCategory = new HashMap<String, PlaceGrid>();
+		gridsByPrice = new ArrayList<PlaceGrid>();
+		gridsByCategoryAndPrice = new HashMap<String, List<PlaceGrid>>();
 	}
 
 	/**
@@ -41,25 +58,48 @@ public class PlaceFactory {
 	 * @param place A place to add, there may be multiple places with the same name
 	 */
 	public void add(Place place) {
-		if (places.keySet().contains(place.getName())) {
-			boolean found = false;
-			Set<Place> matchingPlaces = places.get(place.getName());
-			for (Place aPlace : matchingPlaces) {
-				if (aPlace.equals(place)) {
-					found = true;
-					break;
+		Set<Place> placesWithName = places.get(place.getName());
+		if (placesWithName == null) {
+			placesWithName = new HashSet<Place>();
+			places.put(place.getName(), placesWithName);
+		}
+		if (placesWithName.add(place)) {
+			grid.add(place);
+			if (place.getPrice() != Place.UNKNOWN_PRICE)
+				addToTier(gridsByPrice, place);
+			if (place.getCategory() != null) {
+				PlaceGrid categoryGrid = gridsByCategory.get(place.getCategory());
+				if (categoryGrid == null) {
+					categoryGrid = new PlaceGrid();
+					gridsByCategory.put(place.getCategory(), categoryGrid);
+					gridsByCategoryAndPrice.put(place.getCategory(), new ArrayList<PlaceGrid>());
 				}
-			}
-			if (!found) {
-				matchingPlaces.add(place);
-				return;
+				categoryGrid.add(place);
+				if (place.getPrice() != Place.UNKNOWN_PRICE)
+					addToTier(gridsByCategoryAndPrice.get(place.getCategory()), place);
 			}
 		}
+	}
 
-		Set<Place> placesWithName = new HashSet<Place>();
-		placesWithName.add(place);
-		places.put(place.getName(), placesWithName);
+	/**
+	 * Add a place to the grid of its price tier, creating the grid if need be
+	 */
+	private static void addToTier(List<PlaceGrid> gridsByTier, Place place) {
+		int tier = place.getPrice();
+		while (gridsByTier.size() <= tier)
+			gridsByTier.add(null);
+		if (gridsByTier.get(tier) == null)
+			gridsByTier.set(tier, new PlaceGrid());
+		gridsByTier.get(tier).add(place);
+	}
 
+	/**
+	 * Find the grid to search for places of a category
+	 * @param category The category, or null for any
+	 * @return The grid holding the category's places, or null if no place has the category
+	 */
+	private PlaceGrid gridFor(String category) {
+		return (category == null) ? grid : gridsByCategory.get(category);
 	}
 
 	/**
@@ -80,12 +120,7 @@ public class PlaceFactory {
 
     public Set<Place> findPlacesWithinDistance(LatLon latlon, int distance) {
         Set<Place> returnSet = new HashSet<Place>();
-        for (Set<Place> aSetOfPlaces: places.values()) {
-            for (Place aPlace: aSetOfPlaces) {
-                if (LatLon.distanceBetweenTwoLatLon(latlon, aPlace.getLatLon()) <= distance)
-                    returnSet.add(aPlace);
-            }
-        }
+        grid.findWithinDistance(latlon, distance, null, returnSet);
         return returnSet;
     }
 
@@ -99,14 +134,125 @@ public class PlaceFactory {
 
     public Set<Place> findPlacesWithinDistanceWithFood(LatLon latlon, int distance, String category) {
         Set<Place> returnSet = new HashSet<Place>();
-        for (Set<Place> aSetOfPlaces: places.values()) {
-            for (Place aPlace: aSetOfPlaces) {
-                if ((LatLon.distanceBetweenTwoLatLon(latlon, aPlace.getLatLon()) <= distance) &&
-                        aPlace.getCategory().equals(category)) {
-                    returnSet.add(aPlace);
-                }
-            }
+        PlaceGrid categoryGrid = gridFor(category);
+        if (categoryGrid != null)
+            categoryGrid.findWithinDistance(latlon, distance, null, returnSet);
+        return returnSet;
+    }
+
+    /**
+     * Find a set of places within chosen distance, food type and price, starting at my LatLon
+     * @param latlon My current location
+     * @param distance The chosen distance that we'll willing to go to
+     * @param category The chosen type of food, or null for any
+     * @param maxPrice The highest price tier we'll pay, with 0 being the cheapest. Places
+     *                 whose price is unknown are left out.
+     * @return All places that satisfy the criteria
+     */
+    public Set<Place> findPlacesWithinDistance(LatLon latlon, int distance, String category, int maxPrice) {
+        Set<Place> returnSet = new HashSet<Place>();
+        List<PlaceGrid> gridsByTier = (category == null) ? gridsByPrice : gridsByCategoryAndPrice.get(category);
+        if (gridsByTier == null)
+            return returnSet;
+        for (int tier = 0; tier < gridsByTier.size() && tier <= maxPrice; tier++) {
+            if (gridsByTier.get(tier) != null)
+                gridsByTier.get(tier).findWithinDistance(latlon, distance, null, returnSet);
+        }
+        return returnSet;
+    }
+
+    /**
+     * Find a set of places within chosen distance of everyone, in one pass
+     * @param latlons Where everyone is, non-empty
+     * @param distance The chosen distance that each of us is willing to go
+     * @param category The chosen type of food, or null for any
+     * @return All places that satisfy the criteria
+     */
+    public Set<Place> findPlacesWithinDistanceOfAll(List<LatLon> latlons, int distance, String category) {
+        Set<Place> returnSet = new HashSet<Place>();
+        PlaceGrid categoryGrid = gridFor(category);
+        if (categoryGrid != null)
+            categoryGrid.findWithinDistanceOfAll(latlons, distance, null, returnSet);
+        return returnSet;
+    }
+
+    /**
+     * Find the places nearest to my LatLon
+     * @param latlon My current location
+     * @param k How many places to find; nothing is found if k <= 0
+     * @return Up to k places, nearest first
+     */
+    public List<Place> findNearestPlaces(LatLon latlon, int k) {
+        return grid.findNearest(latlon, k, null);
+    }
+
+    /**
+     * Find the places of a chosen food type nearest to my LatLon
+     * @param latlon My current location
+     * @param k How many places to find; nothing is found if k <= 0
+     * @param category The chosen type of food we want at the moment
+     * @return Up to k places, nearest first
+     */
+    public List<Place> findNearestPlacesWithFood(LatLon latlon, int k, String category) {
+        PlaceGrid categoryGrid = gridFor(category);
+        if (categoryGrid == null)
+            return new ArrayList<Place>();
+        return categoryGrid.findNearest(latlon, k, null);
+    }
+
+    /**
+     * Rank places for a group meeting up from several buildings
+     * @param buildings Where everyone is, non-empty
+     * @param k How many places to find, > 0
+     * @param objective Whether to minimise the longest walk or the total walk
+     * @param category The chosen type of food, or null for any
+     * @return Up to k places with their scores in metres, best first
+     */
+    public List<PlaceDistance> rankPlacesForGroup(List<Building> buildings, int k, GroupObjective objective,
+                                                  String category) {
+        PlaceGrid categoryGrid = gridFor(category);
+        if (categoryGrid == null)
+            return new ArrayList<PlaceDistance>();
+        List<LatLon> origins = new ArrayList<LatLon>(buildings.size());
+        for (Building building : buildings)
+            origins.add(building.getLatLon());
+        return categoryGrid.findBestForGroup(origins, k, objective, null);
+    }
+
+    /**
+     * Find a set of places within chosen distance that have all the chosen tags
+     * @param latlon My current location
+     * @param distance The chosen distance that we'll willing to go to
+     * @param tags The tags we want, such as "wifi" and "quiet"
+     * @return All places that satisfy the criteria
+     */
+    public Set<Place> findPlacesWithinDistanceWithTags(LatLon latlon, int distance, Collection<String> tags) {
+        return findPlacesWithinDistanceWithTags(latlon, distance, null, tags);
+    }
+
+    /**
+     * Find a set of places of a chosen food type within chosen distance that have all the chosen tags
+     * @param latlon My current location
+     * @param distance The chosen distance that we'll willing to go to
+     * @param category The chosen type of food, or null for any
+     * @param tags The tags we want, such as "wifi" and "quiet"
+     * @return All places that satisfy the criteria
+     */
+    public Set<Place> findPlacesWithinDistanceWithTags(LatLon latlon, int distance, String category,
+                                                       Collection<String> tags) {
+        Set<Place> returnSet = new HashSet<Place>();
+        PlaceGrid categoryGrid = gridFor(category);
+        if (categoryGrid == null)
+            return returnSet;
+        long mask = 0;
+        for (String tag : tags) {
+            long tagMask = TagDictionary.getInstance().findMask(tag);
+            // No place has a tag that has never been seen
+            if (tagMask == 0)
+                return returnSet;
+            mask |= tagMask;
         }
+        categoryGrid.findWithinDistance(latlon, distance, null, mask, returnSet);
         return returnSet;
     }
 
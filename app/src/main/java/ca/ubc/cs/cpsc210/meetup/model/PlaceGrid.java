@@ -0,0 +1,483 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import ca.ubc.cs.cpsc210.meetup.util.CampusDistance;
+import ca.ubc.cs.cpsc210.meetup.util.GeoBox;
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+/*
+ * A spatial index of places: a fixed grid of latitude/longitude cells, each
+ * holding the places inside it. A radius query only visits the cells that
+ * overlap the bounding box of the circle. Each cell keeps its places in
+ * columns (see PlaceColumns) with categories as small ids, so a scan compares
+ * primitives and only fetches the Place objects it returns.
+ */
+public class PlaceGrid {
+
+    // Size of a cell in degrees, about 220 m north-south on campus
+    public static final double DEFAULT_CELL_DEGREES = 0.002;
+
+    // Widens the bounds of a cell so that rounding in row() and column() never puts a
+    // place outside them
+    private static final double CELL_PAD = 1e-9;
+
+    // Cells are grouped into blocks of 2^BLOCK_SHIFT by 2^BLOCK_SHIFT for group ranking
+    private static final int BLOCK_SHIFT = 3;
+
+    // A category filter that lets every place through
+    private static final int ANY_CATEGORY = -1;
+
+    private double cellDegrees;
+
+    // The places in each cell, keyed by cellKey(row, column)
+    private Map<Long, PlaceColumns> cells;
+
+    // The keys of the occupied cells in each block, keyed by cellKey(blockRow, blockColumn)
+    private Map<Long, List<Long>> blocks;
+
+    // The id of each category seen, including null
+    private Map<String, Integer> categoryIds;
+
+    // The rows and columns of the occupied cells lie within these bounds
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+    private int minColumn = Integer.MAX_VALUE;
+    private int maxColumn = Integer.MIN_VALUE;
+
+    /**
+     * Constructor
+     */
+    public PlaceGrid() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * Constructor
+     * @param cellDegrees Size of a cell in degrees, > 0
+     */
+    public PlaceGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        cells = new HashMap<Long, PlaceColumns>();
+        blocks = new HashMap<Long, List<Long>>();
+        categoryIds = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Add a place to the grid
+     * @param place The place to add, non-null
+     */
+    public void add(Place place) {
+        LatLon latLon = place.getLatLon();
+        int r = row(latLon.getLatitude());
+        int c = column(latLon.getLongitude());
+        minRow = Math.min(minRow, r);
+        maxRow = Math.max(maxRow, r);
+        minColumn = Math.min(minColumn, c);
+        maxColumn = Math.max(maxColumn, c);
+        Long key = cellKey(r, c);
+        PlaceColumns cell = cells.get(key);
+        if (cell == null) {
+            cell = new PlaceColumns();
+            cells.put(key, cell);
+            Long blockKey = cellKey(r >> BLOCK_SHIFT, c >> BLOCK_SHIFT);
+            List<Long> block = blocks.get(blockKey);
+            if (block == null) {
+                block = new ArrayList<Long>();
+                blocks.put(blockKey, block);
+            }
+            block.add(key);
+        }
+        Integer category = categoryIds.get(place.getCategory());
+        if (category == null) {
+            category = categoryIds.size();
+            categoryIds.put(place.getCategory(), category);
+        }
+        cell.add(place, category);
+    }
+
+    /**
+     * Find the id of a category for filtering
+     * @param category The category, or null for any category
+     * @return The id, ANY_CATEGORY for null, or null if no place has the category
+     */
+    private Integer categoryFilter(String category) {
+        if (category == null)
+            return ANY_CATEGORY;
+        return categoryIds.get(category);
+    }
+
+    /**
+     * Find the places within a distance of a point
+     * @param latLon The point
+     * @param distance The distance in metres
+     * @param category The category places must have, or null for any category
+     * @param results Where to put the places found
+     */
+    public void findWithinDistance(LatLon latLon, double distance, String category,
+                                   Collection<Place> results) {
+        findWithinDistance(latLon, distance, category, 0, results);
+    }
+
+    /**
+     * Find the places within a distance of a point that have every one of some tags
+     * @param latLon The point
+     * @param distance The distance in metres
+     * @param category The category places must have, or null for any category
+     * @param tags The tags places must have, as a TagDictionary mask, 0 for none
+     * @param results Where to put the places found
+     */
+    public void findWithinDistance(LatLon latLon, double distance, String category, long tags,
+                                   Collection<Place> results) {
+        Integer categoryId = categoryFilter(category);
+        if (categoryId == null)
+            return;
+        GeoBox box = GeoBox.around(latLon, distance);
+        CampusDistance within = new CampusDistance(latLon, distance);
+        int firstRow = row(box.getMinLatitude());
+        int lastRow = row(box.getMaxLatitude());
+        int firstColumn = column(box.getMinLongitude());
+        int lastColumn = column(box.getMaxLongitude());
+
+        // For very large circles it is cheaper to visit every occupied cell
+        long cellsInBox = ((long) lastRow - firstRow + 1) * ((long) lastColumn - firstColumn + 1);
+        if (cellsInBox > cells.size()) {
+            for (PlaceColumns cell : cells.values())
+                addWithinDistance(cell, within, categoryId, tags, results);
+            return;
+        }
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                PlaceColumns cell = cells.get(cellKey(r, c));
+                if (cell != null)
+                    addWithinDistance(cell, within, categoryId, tags, results);
+            }
+        }
+    }
+
+    /**
+     * Find the places within a distance of every one of several points. Only cells
+     * overlapping the intersection of the points' bounding boxes are visited, and
+     * places outside the intersection are rejected before any distance is computed.
+     * @param origins The points, non-empty
+     * @param distance The distance in metres
+     * @param category The category places must have, or null for any category
+     * @param results Where to put the places found
+     */
+    public void findWithinDistanceOfAll(List<LatLon> origins, double distance, String category,
+                                        Collection<Place> results) {
+        GeoBox box = GeoBox.around(origins.get(0), distance);
+        for (int i = 1; i < origins.size() && !box.isEmpty(); i++)
+            box = box.intersect(GeoBox.around(origins.get(i), distance));
+        Integer categoryId = categoryFilter(category);
+        if (box.isEmpty() || cells.isEmpty() || categoryId == null)
+            return;
+        CampusDistance[] within = new CampusDistance[origins.size()];
+        for (int i = 0; i < within.length; i++)
+            within[i] = new CampusDistance(origins.get(i), distance);
+
+        int firstRow = Math.max(row(box.getMinLatitude()), minRow);
+        int lastRow = Math.min(row(box.getMaxLatitude()), maxRow);
+        int firstColumn = Math.max(column(box.getMinLongitude()), minColumn);
+        int lastColumn = Math.min(column(box.getMaxLongitude()), maxColumn);
+        if (firstRow > lastRow || firstColumn > lastColumn)
+            return;
+
+        long cellsInBox = ((long) lastRow - firstRow + 1) * ((long) lastColumn - firstColumn + 1);
+        if (cellsInBox > cells.size()) {
+            for (PlaceColumns cell : cells.values())
+                addWithinDistanceOfAll(cell, box, within, categoryId, results);
+            return;
+        }
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                PlaceColumns cell = cells.get(cellKey(r, c));
+                if (cell != null)
+                    addWithinDistanceOfAll(cell, box, within, categoryId, results);
+            }
+        }
+    }
+
+    /**
+     * Add the places of a cell that are in the box, have the category and are close to every origin
+     */
+    private static void addWithinDistanceOfAll(PlaceColumns cell, GeoBox box, CampusDistance[] within,
+                                               int categoryId, Collection<Place> results) {
+        for (int p = 0; p < cell.size(); p++) {
+            double lat = cell.getLatitude(p);
+            double lon = cell.getLongitude(p);
+            if (!box.contains(lat, lon))
+                continue;
+            if (categoryId != ANY_CATEGORY && cell.getCategory(p) != categoryId)
+                continue;
+            boolean closeToAll = true;
+            for (int i = 0; i < within.length && closeToAll; i++)
+                closeToAll = within[i].isWithin(lat, lon);
+            if (closeToAll)
+                results.add(cell.getPlace(p));
+        }
+    }
+
+    /**
+     * Find the k places nearest a point, searching rings of cells outwards from the
+     * point's cell until no unvisited cell can hold anything nearer than the k-th place found
+     * @param latLon The point
+     * @param k How many places to find; nothing is found if k <= 0
+     * @param category The category places must have, or null for any category
+     * @return Up to k places, nearest first
+     */
+    public List<Place> findNearest(LatLon latLon, int k, String category) {
+        if (k <= 0)
+            return new ArrayList<Place>();
+        // Max-heap on distance holding the best k so far
+        PriorityQueue<PlaceDistance> best = new PriorityQueue<PlaceDistance>(k + 1,
+                Collections.<PlaceDistance>reverseOrder());
+        Integer categoryId = categoryFilter(category);
+        if (!cells.isEmpty() && categoryId != null) {
+            int originRow = row(latLon.getLatitude());
+            int originColumn = column(latLon.getLongitude());
+            int lastRing = Math.max(Math.max(originRow - minRow, maxRow - originRow),
+                    Math.max(originColumn - minColumn, maxColumn - originColumn));
+            for (int ring = 0; ring <= lastRing; ring++) {
+                if (best.size() == k && ringCovers(latLon, best.peek().getDistance(), originRow, originColumn, ring - 1))
+                    break;
+                // When a ring has more cells than are occupied, visit the occupied cells instead
+                if (8L * ring > cells.size()) {
+                    for (PlaceColumns cell : cells.values())
+                        offerAll(cell, latLon, k, categoryId, best, originRow, originColumn, ring);
+                    break;
+                }
+                for (int r = originRow - ring; r <= originRow + ring; r++) {
+                    boolean edgeRow = (r == originRow - ring || r == originRow + ring);
+                    int step = edgeRow ? 1 : 2 * ring;
+                    for (int c = originColumn - ring; c <= originColumn + ring; c += Math.max(step, 1)) {
+                        PlaceColumns cell = cells.get(cellKey(r, c));
+                        if (cell != null)
+                            offerAll(cell, latLon, k, categoryId, best, originRow, originColumn, -1);
+                    }
+                }
+            }
+        }
+
+        List<Place> nearest = new ArrayList<Place>(best.size());
+        while (!best.isEmpty())
+            nearest.add(best.poll().getPlace());
+        Collections.reverse(nearest);
+        return nearest;
+    }
+
+    /**
+     * Rank places for a group by how far everyone has to walk. Blocks of cells, then the
+     * occupied cells of a block, are taken from a queue in order of a lower bound on the
+     * score of anything inside them, so only the cells of blocks that come off the queue
+     * are bounded. The search stops once nothing left on the queue can beat the k-th place
+     * found. Within a cell, a place is dropped as soon as its partial score cannot beat the
+     * k-th place.
+     * @param origins Where everyone is, non-empty
+     * @param k How many places to find; nothing is found if k <= 0
+     * @param objective How to score a place from the distances to it
+     * @param category The category places must have, or null for any category
+     * @return Up to k places with their scores in metres, best first
+     */
+    public List<PlaceDistance> findBestForGroup(List<LatLon> origins, int k, GroupObjective objective,
+                                                String category) {
+        int n = origins.size();
+        double[] originLats = new double[n];
+        double[] originLons = new double[n];
+        double[] originCos = new double[n];
+        for (int i = 0; i < n; i++) {
+            originLats[i] = origins.get(i).getLatitude();
+            originLons[i] = origins.get(i).getLongitude();
+            originCos[i] = Math.cos(Math.toRadians(originLats[i]));
+        }
+        boolean sum = (objective == GroupObjective.SUM_DISTANCE);
+        Integer categoryId = categoryFilter(category);
+        if (k <= 0 || categoryId == null)
+            return new ArrayList<PlaceDistance>();
+
+        // A block's box holds the boxes of its cells, so its bound is no more than theirs
+        PriorityQueue<CellBound> queue = new PriorityQueue<CellBound>(blocks.size() + 1);
+        int blockCells = 1 << BLOCK_SHIFT;
+        for (long blockKey : blocks.keySet()) {
+            int firstRow = (int) (blockKey >> 32) << BLOCK_SHIFT;
+            int firstColumn = (int) blockKey << BLOCK_SHIFT;
+            queue.add(new CellBound(blockKey, null, groupBound(originLats, originLons, originCos, sum,
+                    firstRow, firstRow + blockCells, firstColumn, firstColumn + blockCells)));
+        }
+
+        // Max-heap on score holding the best k so far
+        PriorityQueue<PlaceDistance> best = new PriorityQueue<PlaceDistance>(k + 1,
+                Collections.<PlaceDistance>reverseOrder());
+        while (!queue.isEmpty()) {
+            CellBound cellBound = queue.poll();
+            if (best.size() == k && cellBound.bound >= best.peek().getDistance())
+                break;
+            if (cellBound.places == null) {
+                for (long key : blocks.get(cellBound.key)) {
+                    int r = (int) (key >> 32);
+                    int c = (int) key;
+                    double bound = groupBound(originLats, originLons, originCos, sum, r, r + 1, c, c + 1);
+                    if (best.size() < k || bound < best.peek().getDistance())
+                        queue.add(new CellBound(key, cells.get(key), bound));
+                }
+                continue;
+            }
+            PlaceColumns cell = cellBound.places;
+            for (int p = 0; p < cell.size(); p++) {
+                if (categoryId != ANY_CATEGORY && cell.getCategory(p) != categoryId)
+                    continue;
+                double limit = best.size() < k ? Double.POSITIVE_INFINITY : best.peek().getDistance();
+                double score = 0;
+                for (int i = 0; i < n && score < limit; i++) {
+                    double d = LatLon.distanceBetween(originLats[i], originLons[i],
+                            cell.getLatitude(p), cell.getLongitude(p));
+                    score = sum ? score + d : Math.max(score, d);
+                }
+                if (score >= limit)
+                    continue;
+                if (best.size() == k)
+                    best.poll();
+                best.add(new PlaceDistance(cell.getPlace(p), score));
+            }
+        }
+
+        List<PlaceDistance> ranked = new ArrayList<PlaceDistance>(best.size());
+        while (!best.isEmpty())
+            ranked.add(best.poll());
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * A lower bound on the score of anything in the cells from firstRow up to endRow and
+     * firstColumn up to endColumn, both exclusive
+     */
+    private double groupBound(double[] originLats, double[] originLons, double[] originCos, boolean sum,
+                              int firstRow, int endRow, int firstColumn, int endColumn) {
+        double minLat = firstRow * cellDegrees - CELL_PAD;
+        double maxLat = endRow * cellDegrees + CELL_PAD;
+        double minLon = firstColumn * cellDegrees - CELL_PAD;
+        double maxLon = endColumn * cellDegrees + CELL_PAD;
+        double cosCell = Math.cos(Math.toRadians(Math.min(90, Math.max(Math.abs(minLat), Math.abs(maxLat)))));
+        double bound = 0;
+        for (int i = 0; i < originLats.length; i++) {
+            double d = lowerBound(originLats[i], originLons[i], originCos[i], minLat, maxLat,
+                    minLon, maxLon, cosCell);
+            bound = sum ? bound + d : Math.max(bound, d);
+        }
+        return bound;
+    }
+
+    /**
+     * A lower bound on the distance LatLon.distanceBetweenTwoLatLon gives from a point to
+     * anywhere in a box. Every term of the haversine formula is bounded separately: the
+     * latitude and longitude gaps can be no smaller than the gaps to the box, and the
+     * cosine of the far latitude no smaller than cosCell.
+     */
+    private static double lowerBound(double lat, double lon, double cosLat, double minLat, double maxLat,
+                                     double minLon, double maxLon, double cosCell) {
+        double dLat = Math.max(0, Math.max(minLat - lat, lat - maxLat));
+        double dLon = Math.min(180, Math.max(0, Math.max(minLon - lon, lon - maxLon)));
+        double sinLat = Math.sin(Math.toRadians(dLat) / 2);
+        double sinLon = Math.sin(Math.toRadians(dLon) / 2);
+        double a = sinLat * sinLat + cosLat * cosCell * sinLon * sinLon;
+        double d = 2 * GeoBox.EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, a)));
+        // Allow for rounding in the exact distance
+        return d * (1 - 1e-9);
+    }
+
+    /**
+     * Do the cells within ring rings of the origin cell hold every point within distance of latLon
+     */
+    private boolean ringCovers(LatLon latLon, double distance, int originRow, int originColumn, int ring) {
+        if (ring < 0)
+            return false;
+        GeoBox box = GeoBox.around(latLon, distance);
+        return row(box.getMinLatitude()) >= originRow - ring && row(box.getMaxLatitude()) <= originRow + ring
+                && column(box.getMinLongitude()) >= originColumn - ring
+                && column(box.getMaxLongitude()) <= originColumn + ring;
+    }
+
+    /**
+     * Offer the places of a cell to the bounded heap. If skipWithinRing >= 0, places in cells
+     * less than skipWithinRing rings from the origin have already been offered and are skipped.
+     */
+    private void offerAll(PlaceColumns cell, LatLon latLon, int k, int categoryId,
+                          PriorityQueue<PlaceDistance> best, int originRow, int originColumn,
+                          int skipWithinRing) {
+        for (int p = 0; p < cell.size(); p++) {
+            if (categoryId != ANY_CATEGORY && cell.getCategory(p) != categoryId)
+                continue;
+            double lat = cell.getLatitude(p);
+            double lon = cell.getLongitude(p);
+            if (skipWithinRing >= 0) {
+                int r = row(lat);
+                int c = column(lon);
+                if (Math.abs(r - originRow) < skipWithinRing && Math.abs(c - originColumn) < skipWithinRing)
+                    continue;
+            }
+            double distance = LatLon.distanceBetween(latLon.getLatitude(), latLon.getLongitude(), lat, lon);
+            if (best.size() < k) {
+                best.add(new PlaceDistance(cell.getPlace(p), distance));
+            } else if (distance < best.peek().getDistance()) {
+                best.poll();
+                best.add(new PlaceDistance(cell.getPlace(p), distance));
+            }
+        }
+    }
+
+    /**
+     * Add the places of a cell that pass the exact distance, category and tag tests. Tags
+     * can change after a place is added, so they are read from the place itself.
+     */
+    private static void addWithinDistance(PlaceColumns cell, CampusDistance within, int categoryId,
+                                          long tags, Collection<Place> results) {
+        for (int p = 0; p < cell.size(); p++) {
+            if (categoryId != ANY_CATEGORY && cell.getCategory(p) != categoryId)
+                continue;
+            if (!within.isWithin(cell.getLatitude(p), cell.getLongitude(p)))
+                continue;
+            if (tags == 0 || cell.getPlace(p).containsTags(tags))
+                results.add(cell.getPlace(p));
+        }
+    }
+
+    /*
+     * A block of cells, or the places of one cell, with a lower bound on their scores
+     */
+    private static class CellBound implements Comparable<CellBound> {
+        private long key;
+        private PlaceColumns places;
+        private double bound;
+
+        CellBound(long key, PlaceColumns places, double bound) {
+            this.key = key;
+            this.places = places;
+            this.bound = bound;
+        }
+
+        @Override
+        public int compareTo(CellBound other) {
+            return Double.compare(bound, other.bound);
+        }
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDegrees);
+    }
+
+    private int column(double lon) {
+        return (int) Math.floor(lon / cellDegrees);
+    }
+
+    private static Long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
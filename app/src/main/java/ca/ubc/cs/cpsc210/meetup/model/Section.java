@@ -48,6 +48,20 @@ public class Section implements Comparable<Section> {
 		this.building = building;
 	}
 
+	/**
+	 * Constructor
+     * @param name The name of the section, such as "201"
+     * @param day The day of Week as in "MWF" or "TR"
+     * @param timeOfCourse When the section starts and ends
+     * @param building The building in which the section occurs
+     */
+	public Section(String name, String day, CourseTime timeOfCourse, Building building) {
+		this.name = name;
+		this.timeOfCourse = timeOfCourse;
+		dayOfWeek = day;
+		this.building = building;
+	}
+
 	// ********** Getters and Setters **********
 
 	public void setCourse(Course course) {
@@ -0,0 +1,153 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+/*
+ * Represent the sections of one day of a schedule as non-overlapping intervals
+ * kept sorted by start minute, so that lookups by time are binary searches.
+ * Because intervals never overlap, they are also sorted by end minute.
+ */
+public class SectionIntervalIndex {
+
+    // Parallel arrays sorted by start minute, the first size entries are used
+    private int[] starts;
+    private int[] ends;
+    private Section[] sections;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public SectionIntervalIndex() {
+        starts = new int[4];
+        ends = new int[4];
+        sections = new Section[4];
+        size = 0;
+    }
+
+    /**
+     * Add a section to the index
+     * @param section The section to add, must not overlap any section in the index
+     */
+    public void add(Section section) {
+        int start = section.getCourseTime().getStartMinuteOfDay();
+        int end = section.getCourseTime().getEndMinuteOfDay();
+        if (size == starts.length) {
+            int capacity = starts.length * 2;
+            int[] grownStarts = new int[capacity];
+            int[] grownEnds = new int[capacity];
+            Section[] grownSections = new Section[capacity];
+            System.arraycopy(starts, 0, grownStarts, 0, size);
+            System.arraycopy(ends, 0, grownEnds, 0, size);
+            System.arraycopy(sections, 0, grownSections, 0, size);
+            starts = grownStarts;
+            ends = grownEnds;
+            sections = grownSections;
+        }
+        int at = countStartingAtOrBefore(start);
+        System.arraycopy(starts, at, starts, at + 1, size - at);
+        System.arraycopy(ends, at, ends, at + 1, size - at);
+        System.arraycopy(sections, at, sections, at + 1, size - at);
+        starts[at] = start;
+        ends[at] = end;
+        sections[at] = section;
+        size++;
+    }
+
+    /**
+     * Find the section in the index that overlaps the given interval
+     * @param startMinute Minutes since midnight at which the interval starts
+     * @param endMinute Minutes since midnight at which the interval ends
+     * @return An overlapping section or null if none
+     */
+    public Section findOverlapping(int startMinute, int endMinute) {
+        // The last section starting before the interval ends is the only candidate
+        int i = countStartingBefore(endMinute) - 1;
+        if (i >= 0 && ends[i] > startMinute)
+            return sections[i];
+        return null;
+    }
+
+    /**
+     * Find the section going on at a minute of the day
+     * @param minuteOfDay Minutes since midnight
+     * @return The section with start <= minuteOfDay < end or null if none
+     */
+    public Section sectionCovering(int minuteOfDay) {
+        int i = countStartingAtOrBefore(minuteOfDay) - 1;
+        if (i >= 0 && ends[i] > minuteOfDay)
+            return sections[i];
+        return null;
+    }
+
+    /**
+     * Find the last section over by a minute of the day
+     * @param minuteOfDay Minutes since midnight
+     * @return The section with the latest end <= minuteOfDay or null if none
+     */
+    public Section lastSectionEndingBefore(int minuteOfDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= minuteOfDay)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return (low > 0) ? sections[low - 1] : null;
+    }
+
+    /**
+     * Find the next section to start after a minute of the day
+     * @param minuteOfDay Minutes since midnight
+     * @return The section with the earliest start > minuteOfDay or null if none
+     */
+    public Section nextSectionStartingAfter(int minuteOfDay) {
+        int i = countStartingAtOrBefore(minuteOfDay);
+        return (i < size) ? sections[i] : null;
+    }
+
+    // ************** Getters ****************
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieve the section at a position in start order
+     * @param i 0 <= i < size()
+     */
+    public Section get(int i) {
+        return sections[i];
+    }
+
+    public int getStartMinute(int i) {
+        return starts[i];
+    }
+
+    public int getEndMinute(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Number of sections with start <= minuteOfDay
+     */
+    private int countStartingAtOrBefore(int minuteOfDay) {
+        return countStartingBefore(minuteOfDay + 1);
+    }
+
+    /**
+     * Number of sections with start < minuteOfDay
+     */
+    private int countStartingBefore(int minuteOfDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < minuteOfDay)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
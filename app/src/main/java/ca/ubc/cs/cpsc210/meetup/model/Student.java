@@ -38,6 +38,10 @@ public class Student {
 		return firstName;
 	}
 
+	public int getId() {
+		return id;
+	}
+
     public String toString() {
         return id + " " + firstName + " " + lastName;
     }
@@ -1,58 +1,86 @@
 package ca.ubc.cs.cpsc210.meetup.model;
 
-import android.util.Log;
+import java.util.Collection;
 
-import java.util.HashMap;
-import java.util.Map;
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalSectionInitialization;
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalStudentException;
+import ca.ubc.cs.cpsc210.meetup.util.ConcurrentIntMap;
 
 /**
- * Manage the students who have been "seen"
+ * Manage the students who have been "seen". Students may be added from
+ * several threads while others read them.
  */
 public class StudentManager {
 
 	// Remember the students, keyed by id
-	private Map<Integer, Student> students;
+	private ConcurrentIntMap<Student> students;
 
 	/**
 	 * Constructor
 	 */
 	public StudentManager() {
-		students = new HashMap<Integer, Student>();
+		students = new ConcurrentIntMap<Student>();
 	}
 
 	/**
-	 * Remember a student
+	 * Constructor
+     * @param expectedStudents How many students are expected to be remembered
+	 */
+	public StudentManager(int expectedStudents) {
+		students = new ConcurrentIntMap<Student>(expectedStudents);
+	}
+
+	/**
+	 * Remember a student, unless a student with the same id is already remembered
      * @param lastName The lastName of the student, non-null and non-empty
      * @param firstName The firstName of the student, non-null and non-empty
      * @param id Id of student > 0
 	 */
 	public void addStudent(String lastName, String firstName, int id) {
-        if (!students.containsKey(id)) {
-			Student newStudent = new Student(lastName, firstName, id);
-			students.put(id, newStudent);
+		students.putIfAbsent(id, new Student(lastName, firstName, id));
+	}
+
+	/**
+	 * Remember many students at once. Students whose id is already
+	 * remembered are ignored.
+     * @param newStudents The students to remember, non-null
+     * @return How many students were added
+	 */
+	public int addStudents(Collection<Student> newStudents) {
+		int[] ids = new int[newStudents.size()];
+		Student[] values = new Student[newStudents.size()];
+		int count = 0;
+		for (Student student : newStudents) {
+			ids[count] = student.getId();
+			values[count] = student;
+			count++;
 		}
+		return students.putAllIfAbsent(ids, values, count);
 	}
 
 	/**
 	 * Add a section to a student's schedule
-     * @param id The id of the student
+     * @param id The id of the student, who must have been remembered
      * @param courseCode The four-letter course code
      * @param courseNumber The course number
      * @param sectionId The section which must exist in course
 	 */
 	public void addSectionToSchedule(int id, String courseCode,
 			int courseNumber, String sectionId) {
-		CourseFactory courseFactory = CourseFactory.getInstance();
-		Course course = courseFactory.getCourse(courseCode, courseNumber);
-		Section section = course.getSection(sectionId);
+		Section section = CourseFactory.getInstance().getSection(courseCode, courseNumber, sectionId);
+		if (section == null)
+			throw new IllegalSectionInitialization("No section " + courseCode + " " + courseNumber
+					+ " " + sectionId);
 		Student student = students.get(id);
+		if (student == null)
+			throw new IllegalStudentException("No student with id " + id);
 		Schedule schedule = student.getSchedule();
 		schedule.add(section);
 	}
 
-	
+
 	// ************* Getters ***************
-	
+
 	/*
 	 * Retrieve a particular student
 	 * REQUIRES: id > 0 and student with that id has been remembered
@@ -62,4 +90,11 @@ public class StudentManager {
 		return students.get(id);
 	}
 
+	/*
+	 * Retrieve how many students have been remembered
+	 */
+	public int size() {
+		return students.size();
+	}
+
 }
@@ -0,0 +1,96 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Provide one shared numbering of the tags used to describe places, so that a
+ * place can keep its tags as bits of a single long rather than a set of strings
+ */
+public class TagDictionary {
+
+	// The most tags there can be, one per bit of a long
+	public static final int MAX_TAGS = 64;
+
+	// The bit of each tag
+	private Map<String, Integer> bits;
+
+	// The tags in bit order
+	private List<String> tags;
+
+	// Singleton
+	private static TagDictionary instance = null;
+
+	/**
+	 * Retrieve the one and only one dictionary instance
+	 */
+	public static synchronized TagDictionary getInstance() {
+		if (instance == null)
+			instance = new TagDictionary();
+		return instance;
+	}
+
+	/**
+	 * Reset for testing
+	 */
+	public static synchronized void reset() {
+		instance = null;
+	}
+
+	/**
+	 * Constructor. Only the singleton need access
+	 */
+	protected TagDictionary() {
+		bits = new HashMap<String, Integer>();
+		tags = new ArrayList<String>();
+	}
+
+	/**
+	 * Retrieve the mask of a tag, giving the tag a bit if it hasn't been seen before
+	 * @param tag The tag, non-null
+	 * @return The mask with just the tag's bit set
+	 * @throws IllegalStateException if the tag is new and all MAX_TAGS bits are taken
+	 */
+	public synchronized long getMask(String tag) {
+		Integer bit = bits.get(tag);
+		if (bit == null) {
+			if (tags.size() == MAX_TAGS)
+				throw new IllegalStateException("No room for tag " + tag);
+			bit = tags.size();
+			bits.put(tag, bit);
+			tags.add(tag);
+		}
+		return 1L << bit;
+	}
+
+	/**
+	 * Retrieve the mask of a tag without giving it a bit
+	 * @param tag The tag, non-null
+	 * @return The mask with just the tag's bit set, or 0 if the tag hasn't been seen before
+	 */
+	public synchronized long findMask(String tag) {
+		Integer bit = bits.get(tag);
+		return (bit == null) ? 0 : 1L << bit;
+	}
+
+	/**
+	 * Retrieve the tags whose bits are set in a mask
+	 * @param mask The mask
+	 * @return The tags in bit order
+	 */
+	public synchronized List<String> getTags(long mask) {
+		List<String> result = new ArrayList<String>(Long.bitCount(mask));
+		for (int bit = 0; bit < tags.size(); bit++) {
+			if ((mask & (1L << bit)) != 0)
+				result.add(tags.get(bit));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	public synchronized int size() {
+		return tags.size();
+	}
+}
@@ -0,0 +1,123 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+/**
+ * Answer "is this point within d metres of the origin" quickly at campus scale.
+ *
+ * Distances are first estimated with the equirectangular approximation, using
+ * the cosine of the origin's latitude worked out once. The estimate is compared
+ * squared, so there is no square root and no trigonometry per point. For a
+ * point t = d / EARTH_RADIUS radians from an origin at latitude lat, the estimate
+ * is within a relative error of
+ *     t * tan(|lat| + t) / 2 + t * t
+ * of LatLon.distanceBetweenTwoLatLon (about 0.05% for 500 m at 49 degrees north).
+ * Only points whose estimate falls inside that error of d are checked with the
+ * exact haversine distance, so isWithin always agrees with the exact distance.
+ * Far from the equator or for long distances the bound is no help and every
+ * point is checked exactly.
+ */
+public class CampusDistance {
+
+	// The fast path is only used up to this distance in metres and this latitude in degrees
+	public static final double MAX_FAST_DISTANCE = 100000;
+	public static final double MAX_FAST_LATITUDE = 80;
+
+	private LatLon origin;
+	private double distance;
+	private double originLat;
+	private double originLon;
+	private double cosOriginLat;
+
+	// Squared estimates, in square radians, at or below which a point is surely
+	// within distance and above which it surely is not
+	private double surelyWithin;
+	private double surelyBeyond;
+
+    /**
+     * Constructor
+     * @param origin The point distances are measured from
+     * @param distance The distance in metres, >= 0
+     */
+	public CampusDistance(LatLon origin, double distance) {
+		this.origin = origin;
+		this.distance = distance;
+		originLat = Math.toRadians(origin.getLatitude());
+		originLon = Math.toRadians(origin.getLongitude());
+		cosOriginLat = Math.cos(originLat);
+
+		if (distance <= MAX_FAST_DISTANCE && Math.abs(origin.getLatitude()) <= MAX_FAST_LATITUDE) {
+			double angle = distance / GeoBox.EARTH_RADIUS;
+			double error = relativeError(origin.getLatitude(), distance);
+			surelyWithin = square(angle * (1 - error));
+			surelyBeyond = square(angle * (1 + error));
+		} else {
+			surelyWithin = -1;
+			surelyBeyond = Double.POSITIVE_INFINITY;
+		}
+	}
+
+    /**
+     * The bound on the relative error of the estimate for points within distance of
+     * an origin at latitude, with a little extra for rounding
+     * @param latitude Latitude of the origin in degrees
+     * @param distance The distance in metres
+     * @return The bound, as a fraction of the distance
+     */
+	public static double relativeError(double latitude, double distance) {
+		double t = distance / GeoBox.EARTH_RADIUS;
+		return t * Math.tan(Math.toRadians(Math.abs(latitude)) + t) / 2 + t * t + 1e-9;
+	}
+
+    /**
+     * Estimate the distance to a point, squared
+     * @param lat Latitude of the point
+     * @param lon Longitude of the point
+     * @return The estimated distance in radians of arc, squared
+     */
+	public double squaredEstimate(double lat, double lon) {
+		double dLon = Math.toRadians(lon) - originLon;
+		if (dLon > Math.PI)
+			dLon -= 2 * Math.PI;
+		else if (dLon < -Math.PI)
+			dLon += 2 * Math.PI;
+		double x = dLon * cosOriginLat;
+		double y = Math.toRadians(lat) - originLat;
+		return x * x + y * y;
+	}
+
+    /**
+     * Estimate the distance to a point
+     * @param point The point
+     * @return The estimated distance in metres
+     */
+	public double estimate(LatLon point) {
+		return GeoBox.EARTH_RADIUS * Math.sqrt(squaredEstimate(point.getLatitude(), point.getLongitude()));
+	}
+
+    /**
+     * Is a point within distance of the origin, as LatLon.distanceBetweenTwoLatLon measures it
+     * @param point The point
+     * @return True if the point is within distance and false otherwise
+     */
+	public boolean isWithin(LatLon point) {
+		return isWithin(point.getLatitude(), point.getLongitude());
+	}
+
+    /**
+     * Is a point within distance of the origin, as LatLon.distanceBetweenTwoLatLon measures it
+     * @param lat Latitude of the point
+     * @param lon Longitude of the point
+     * @return True if the point is within distance and false otherwise
+     */
+	public boolean isWithin(double lat, double lon) {
+		double estimate = squaredEstimate(lat, lon);
+		if (estimate <= surelyWithin)
+			return true;
+		if (estimate > surelyBeyond)
+			return false;
+		return LatLon.distanceBetween(origin.getLatitude(), origin.getLongitude(), lat, lon) <= distance;
+	}
+
+	private static double square(double x) {
+		return x * x;
+	}
+}
@@ -0,0 +1,181 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.Arrays;
+
+/**
+ * Find walking routes on campus without the network, by A* search over a
+ * WalkwayGraph. The heuristic is the haversine distance to the goal, which
+ * never overestimates since every edge is at least that long, so the route
+ * found is the shortest in the graph.
+ *
+ * The app only asks it when MapQuest cannot be reached. The bundled
+ * campus_walkways.txt joins the catalog buildings with straight lines, so
+ * its routes are no substitute for MapQuest's until a real footpath extract
+ * is bundled in its place.
+ */
+public class CampusRouter {
+
+    // Walking speed used to estimate travel time, in metres per second
+    public static final double WALKING_SPEED = 1.4;
+
+    // How far a building may be from the nearest walkway node for the graph to be used, in metres
+    public static final double MAX_SNAP_DISTANCE = 150;
+
+    private WalkwayGraph graph;
+
+    // Search state, reused between searches. A node's entries are only valid
+    // when its stamp equals the current search number.
+    private double[] costSoFar;
+    private int[] cameFrom;
+    private int[] stamp;
+    private boolean[] closed;
+    private int search;
+
+    // Binary min-heap of open nodes keyed on cost so far plus heuristic.
+    // A node may appear more than once; stale entries are skipped when popped.
+    private int[] heapNodes;
+    private double[] heapKeys;
+    private int heapSize;
+
+    /**
+     * Constructor
+     * @param graph The walkways to route over, non-null
+     */
+    public CampusRouter(WalkwayGraph graph) {
+        this.graph = graph;
+        int n = graph.getNumberOfNodes();
+        costSoFar = new double[n];
+        cameFrom = new int[n];
+        stamp = new int[n];
+        closed = new boolean[n];
+        heapNodes = new int[Math.max(16, n)];
+        heapKeys = new double[heapNodes.length];
+    }
+
+    /**
+     * Find the shortest walk between two points. The walk starts and ends at the
+     * walkway nodes nearest the points.
+     * @param from Where to start
+     * @param to Where to end
+     * @return The route, or null if a point is further than MAX_SNAP_DISTANCE from the
+     * walkways or the walkways do not connect them
+     */
+    public synchronized Route findRoute(LatLon from, LatLon to) {
+        int start = graph.nearestNode(from);
+        int goal = graph.nearestNode(to);
+        if (start < 0 || goal < 0)
+            return null;
+        if (distanceTo(from, start) > MAX_SNAP_DISTANCE || distanceTo(to, goal) > MAX_SNAP_DISTANCE)
+            return null;
+
+        if (!search(start, goal))
+            return null;
+
+        int length = 1;
+        for (int node = goal; node != start; node = cameFrom[node])
+            length++;
+        int[] shapeE6 = new int[2 * length];
+        int i = length - 1;
+        for (int node = goal; ; node = cameFrom[node]) {
+            shapeE6[2 * i] = graph.getLatitudeE6(node);
+            shapeE6[2 * i + 1] = graph.getLongitudeE6(node);
+            if (node == start)
+                break;
+            i--;
+        }
+        return new Route(shapeE6, costSoFar[goal] / WALKING_SPEED);
+    }
+
+    /**
+     * Run A* from start until goal is closed
+     * @return True if goal was reached
+     */
+    private boolean search(int start, int goal) {
+        nextSearch();
+        heapSize = 0;
+        visit(start, 0, start);
+        push(start, graph.distance(start, goal));
+        while (heapSize > 0) {
+            int node = pop();
+            if (closed[node])
+                continue;
+            closed[node] = true;
+            if (node == goal)
+                return true;
+            for (int e = graph.getFirstEdge(node); e < graph.getEndOfEdges(node); e++) {
+                int next = graph.getEdgeTarget(e);
+                double cost = costSoFar[node] + graph.getEdgeLength(e);
+                if (stamp[next] != search) {
+                    visit(next, cost, node);
+                } else if (!closed[next] && cost < costSoFar[next]) {
+                    costSoFar[next] = cost;
+                    cameFrom[next] = node;
+                } else {
+                    continue;
+                }
+                push(next, cost + graph.distance(next, goal));
+            }
+        }
+        return false;
+    }
+
+    private void nextSearch() {
+        search++;
+        if (search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+
+    private void visit(int node, double cost, int from) {
+        stamp[node] = search;
+        closed[node] = false;
+        costSoFar[node] = cost;
+        cameFrom[node] = from;
+    }
+
+    private double distanceTo(LatLon latLon, int node) {
+        return LatLon.distanceBetween(latLon.getLatitude(), latLon.getLongitude(),
+                graph.getLatitude(node), graph.getLongitude(node));
+    }
+
+    private void push(int node, double key) {
+        if (heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, 2 * heapSize);
+            heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heapKeys[parent] <= key)
+                break;
+            heapNodes[i] = heapNodes[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        int lastNode = heapNodes[--heapSize];
+        double lastKey = heapKeys[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child])
+                child++;
+            if (heapKeys[child] >= lastKey)
+                break;
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapNodes[i] = lastNode;
+        heapKeys[i] = lastKey;
+        return top;
+    }
+}
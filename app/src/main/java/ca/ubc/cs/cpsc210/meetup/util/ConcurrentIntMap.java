@@ -0,0 +1,221 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A thread-safe map from primitive int keys to values. Keys are never boxed:
+ * the map is split into lock stripes, each an open-addressing table of int
+ * keys and values. Threads working on different stripes never contend.
+ * Values cannot be removed, which is all the model needs.
+ */
+public class ConcurrentIntMap<V> {
+
+    // Number of stripes, a power of two
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    // Grow a stripe when it is more than 3/4 full
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    private final Stripe<V>[] stripes;
+
+    /**
+     * Constructor
+     */
+    public ConcurrentIntMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor
+     * @param expectedSize How many entries the map is expected to hold
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentIntMap(int expectedSize) {
+        // Arrays of a generic type cannot be created, only cast to
+        Stripe<V>[] typedStripes = (Stripe<V>[]) new Stripe<?>[STRIPES];
+        stripes = typedStripes;
+        int perStripe = (expectedSize / STRIPES) + 1;
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe<V>(perStripe);
+    }
+
+    /**
+     * Retrieve the value for a key
+     * @param key The key of interest
+     * @return The value or null if none
+     */
+    public V get(int key) {
+        int hash = hash(key);
+        Stripe<V> stripe = stripes[hash & (STRIPES - 1)];
+        synchronized (stripe) {
+            return stripe.get(key, hash);
+        }
+    }
+
+    /**
+     * Determine if there is a value for a key
+     * @param key The key of interest
+     * @return True if there is a value for the key
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Remember a value for a key unless there already is one
+     * @param key The key
+     * @param value The value, non-null
+     * @return The value already in the map, or null if value was added
+     */
+    public V putIfAbsent(int key, V value) {
+        int hash = hash(key);
+        Stripe<V> stripe = stripes[hash & (STRIPES - 1)];
+        synchronized (stripe) {
+            return stripe.putIfAbsent(key, hash, value);
+        }
+    }
+
+    /**
+     * Remember many values at once, taking each stripe's lock only once.
+     * Keys already in the map keep their value.
+     * @param keys The keys
+     * @param values The values, values[i] goes with keys[i]
+     * @param count How many entries of keys and values to use
+     * @return How many values were added
+     */
+    public int putAllIfAbsent(int[] keys, V[] values, int count) {
+        // Bucket the entries by stripe first
+        int[] perStripe = new int[STRIPES + 1];
+        for (int i = 0; i < count; i++)
+            perStripe[(hash(keys[i]) & (STRIPES - 1)) + 1]++;
+        for (int s = 0; s < STRIPES; s++)
+            perStripe[s + 1] += perStripe[s];
+        int[] order = new int[count];
+        int[] next = new int[STRIPES];
+        System.arraycopy(perStripe, 0, next, 0, STRIPES);
+        for (int i = 0; i < count; i++)
+            order[next[hash(keys[i]) & (STRIPES - 1)]++] = i;
+
+        int added = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            if (perStripe[s] == perStripe[s + 1])
+                continue;
+            Stripe<V> stripe = stripes[s];
+            synchronized (stripe) {
+                for (int j = perStripe[s]; j < perStripe[s + 1]; j++) {
+                    int i = order[j];
+                    if (stripe.putIfAbsent(keys[i], hash(keys[i]), values[i]) == null)
+                        added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Retrieve how many entries are in the map
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Retrieve a snapshot of all values in the map, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> values = new ArrayList<V>();
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.values.length; i++) {
+                    if (stripe.values[i] != null)
+                        values.add((V) stripe.values[i]);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Spread the bits of a key; the low bits pick the stripe and the high bits the slot
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /*
+     * One lock stripe: an open-addressing table with linear probing.
+     * A slot is empty when its value is null.
+     */
+    private static class Stripe<V> {
+        private int[] keys;
+        private Object[] values;
+        private int size;
+
+        Stripe(int expectedSize) {
+            int capacity = 8;
+            while (capacity * MAX_LOAD_NUMERATOR < expectedSize * MAX_LOAD_DENOMINATOR)
+                capacity <<= 1;
+            keys = new int[capacity];
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int key, int hash) {
+            int mask = keys.length - 1;
+            for (int i = slot(hash, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return (V) values[i];
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V putIfAbsent(int key, int hash, V value) {
+            int mask = keys.length - 1;
+            int i = slot(hash, mask);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return (V) values[i];
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            if (size * MAX_LOAD_DENOMINATOR > keys.length * MAX_LOAD_NUMERATOR)
+                grow();
+            return null;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null)
+                    continue;
+                int i = slot(hash(oldKeys[j]), mask);
+                while (values[i] != null)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int slot(int hash, int mask) {
+            // The low bits already chose the stripe, use the rest for the slot
+            return (hash >>> STRIPE_BITS) & mask;
+        }
+    }
+}
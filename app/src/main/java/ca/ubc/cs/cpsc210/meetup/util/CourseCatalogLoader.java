@@ -0,0 +1,249 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalCourseTimeException;
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+import ca.ubc.cs.cpsc210.meetup.model.BuildingFactory;
+import ca.ubc.cs.cpsc210.meetup.model.Course;
+import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.Section;
+
+/**
+ * Load the campus course catalog into the CourseFactory and BuildingFactory.
+ *
+ * The text form has one record per line, fields separated by '|', and
+ * '#' comments. A building must be defined before a section uses it:
+ *   building|DMP|49.261474|-123.248060
+ *   section|CPSC|210|202|MWF|12:00|12:50|DMP
+ *
+ * The text form can be compiled once into a compact binary form that loads
+ * without any string parsing. Both forms are read as streams and may be
+ * loaded from a background thread.
+ */
+public class CourseCatalogLoader {
+
+    // Identifies the binary form and its layout
+    private static final int BINARY_MAGIC = 0x4D434154; // "MCAT"
+    private static final int BINARY_VERSION = 2;
+
+    /**
+     * Load the text form of the catalog
+     * @param in The text to read, it is not closed
+     * @return The number of sections loaded
+     * @throws IOException if the text cannot be read or is ill-formed
+     */
+    public static int loadText(Reader in) throws IOException {
+        Catalog catalog = parseText(in);
+        return catalog.install();
+    }
+
+    /**
+     * Load the binary form of the catalog
+     * @param in The binary form, as written by compile, it is not closed
+     * @return The number of sections loaded
+     * @throws IOException if the stream cannot be read or is not a catalog
+     */
+    public static int loadBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != BINARY_MAGIC || data.readInt() != BINARY_VERSION)
+            throw new IOException("Not a compiled course catalog");
+
+        BuildingFactory buildingFactory = BuildingFactory.getInstance();
+        CourseFactory courseFactory = CourseFactory.getInstance();
+
+        int numberOfBuildings = data.readInt();
+        Building[] buildings = new Building[numberOfBuildings];
+        for (int i = 0; i < numberOfBuildings; i++) {
+            String name = data.readUTF();
+            int latE6 = data.readInt();
+            int lonE6 = data.readInt();
+            buildings[i] = buildingFactory.getBuilding(name, LatLon.fromE6(latE6, lonE6));
+        }
+
+        int numberOfSections = 0;
+        int numberOfCourses = data.readInt();
+        for (int i = 0; i < numberOfCourses; i++) {
+            Course course = courseFactory.getCourse(data.readUTF(), data.readInt());
+            int sectionsInCourse = data.readInt();
+            for (int j = 0; j < sectionsInCourse; j++) {
+                String name = data.readUTF();
+                String day = data.readUTF();
+                int start = data.readShort();
+                int end = data.readShort();
+                int building = data.readInt();
+                if (building < 0 || building >= numberOfBuildings)
+                    throw new IOException("Bad building index " + building);
+                addSection(course, name, day, start, end, buildings[building]);
+                numberOfSections++;
+            }
+        }
+        return numberOfSections;
+    }
+
+    /**
+     * Compile the text form of the catalog into the binary form
+     * @param in The text to read, it is not closed
+     * @param out Where to write the binary form, it is flushed but not closed
+     * @throws IOException if the text cannot be read or is ill-formed
+     */
+    public static void compile(Reader in, OutputStream out) throws IOException {
+        Catalog catalog = parseText(in);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(BINARY_VERSION);
+
+        data.writeInt(catalog.buildingNames.size());
+        for (int i = 0; i < catalog.buildingNames.size(); i++) {
+            data.writeUTF(catalog.buildingNames.get(i));
+            data.writeInt(catalog.buildingLatLons.get(i).getLatitudeE6());
+            data.writeInt(catalog.buildingLatLons.get(i).getLongitudeE6());
+        }
+
+        data.writeInt(catalog.courses.size());
+        for (Map.Entry<String, List<SectionRecord>> entry : catalog.courses.entrySet()) {
+            List<SectionRecord> records = entry.getValue();
+            data.writeUTF(records.get(0).code);
+            data.writeInt(records.get(0).number);
+            data.writeInt(records.size());
+            for (SectionRecord record : records) {
+                data.writeUTF(record.name);
+                data.writeUTF(record.day);
+                data.writeShort(record.start);
+                data.writeShort(record.end);
+                data.writeInt(record.building);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Parse the text form into records, checking every line
+     */
+    private static Catalog parseText(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        Catalog catalog = new Catalog();
+        Map<String, Integer> buildingIndex = new HashMap<String, Integer>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\\|", -1);
+            try {
+                if (fields[0].equals("building") && fields.length == 4) {
+                    String name = fields[1].trim();
+                    if (!buildingIndex.containsKey(name)) {
+                        buildingIndex.put(name, catalog.buildingNames.size());
+                        catalog.buildingNames.add(name);
+                        catalog.buildingLatLons.add(new LatLon(Double.parseDouble(fields[2].trim()),
+                                Double.parseDouble(fields[3].trim())));
+                    }
+                } else if (fields[0].equals("section") && fields.length == 8) {
+                    SectionRecord record = new SectionRecord();
+                    record.code = fields[1].trim();
+                    record.number = Integer.parseInt(fields[2].trim());
+                    record.name = fields[3].trim();
+                    record.day = fields[4].trim();
+                    record.start = CourseTime.parseMinuteOfDay(fields[5]);
+                    record.end = CourseTime.parseMinuteOfDay(fields[6]);
+                    Integer building = buildingIndex.get(fields[7].trim());
+                    if (building == null)
+                        throw new IOException("Line " + lineNumber + ": unknown building " + fields[7]);
+                    record.building = building;
+                    // Check the times now so that a bad line is reported with its number
+                    new CourseTime(record.start, record.end);
+                    catalog.add(record);
+                } else {
+                    throw new IOException("Line " + lineNumber + ": unknown record");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": bad number");
+            } catch (IllegalCourseTimeException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Create a section and link it with its course
+     */
+    private static void addSection(Course course, String name, String day, int start, int end,
+                                   Building building) throws IOException {
+        try {
+            Section section = new Section(name, day, new CourseTime(start, end), building);
+            section.setCourse(course);
+            course.addSection(section);
+        } catch (IllegalCourseTimeException e) {
+            throw new IOException(course.getCode() + " " + course.getNumber() + " " + name + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /*
+     * The parsed text form: buildings by index and sections grouped by course
+     */
+    private static class Catalog {
+        private List<String> buildingNames = new ArrayList<String>();
+        private List<LatLon> buildingLatLons = new ArrayList<LatLon>();
+        private Map<String, List<SectionRecord>> courses = new LinkedHashMap<String, List<SectionRecord>>();
+
+        void add(SectionRecord record) {
+            String key = record.code + " " + record.number;
+            List<SectionRecord> records = courses.get(key);
+            if (records == null) {
+                records = new ArrayList<SectionRecord>();
+                courses.put(key, records);
+            }
+            records.add(record);
+        }
+
+        int install() throws IOException {
+            BuildingFactory buildingFactory = BuildingFactory.getInstance();
+            CourseFactory courseFactory = CourseFactory.getInstance();
+            Building[] buildings = new Building[buildingNames.size()];
+            for (int i = 0; i < buildings.length; i++)
+                buildings[i] = buildingFactory.getBuilding(buildingNames.get(i), buildingLatLons.get(i));
+
+            int numberOfSections = 0;
+            for (List<SectionRecord> records : courses.values()) {
+                Course course = courseFactory.getCourse(records.get(0).code, records.get(0).number);
+                for (SectionRecord record : records) {
+                    addSection(course, record.name, record.day, record.start, record.end,
+                            buildings[record.building]);
+                    numberOfSections++;
+                }
+            }
+            return numberOfSections;
+        }
+    }
+
+    /*
+     * One section line of the text form
+     */
+    private static class SectionRecord {
+        private String code;
+        private int number;
+        private String name;
+        private String day;
+        private int start;
+        private int end;
+        private int building;
+    }
+}
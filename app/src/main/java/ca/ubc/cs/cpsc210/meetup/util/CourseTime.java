@@ -33,6 +33,23 @@ public class CourseTime implements Comparable<CourseTime> {
 			throw new IllegalCourseTimeException("Start time must be less than end time.");
 	}
 	
+    /**
+     * Represent a course time
+     * @param startMinuteOfDay Minutes since midnight at which a course (or section) starts
+     * @param endMinuteOfDay Minutes since midnight at which a course (or section) ends
+     * @throws IllegalCourseTimeException
+     */
+	public CourseTime(int startMinuteOfDay, int endMinuteOfDay) throws IllegalCourseTimeException {
+		if (startMinuteOfDay < 0 || endMinuteOfDay > 24 * 60)
+			throw new IllegalCourseTimeException("Time must be within the day.");
+		if (startMinuteOfDay > endMinuteOfDay)
+			throw new IllegalCourseTimeException("Start time must be less than end time.");
+		startHours = startMinuteOfDay / 60;
+		startMinutes = startMinuteOfDay % 60;
+		endHours = endMinuteOfDay / 60;
+		endMinutes = endMinuteOfDay % 60;
+	}
+
 	public String getEndTime()
     {
 		return new String(endHours + ":" + endMinutes);
@@ -111,6 +128,46 @@ public class CourseTime implements Comparable<CourseTime> {
     public int getEndMinutes() {
         return endMinutes;
     }
+
+    /**
+     * Retrieve the start of the course as minutes since midnight
+     * @return Minutes since midnight at which the course starts
+     */
+    public int getStartMinuteOfDay() {
+        return (startHours * 60) + startMinutes;
+    }
+
+    /**
+     * Retrieve the end of the course as minutes since midnight
+     * @return Minutes since midnight at which the course ends
+     */
+    public int getEndMinuteOfDay() {
+        return (endHours * 60) + endMinutes;
+    }
+
+    /**
+     * Transform a "HH" or "HH:MM" time into minutes into the day
+     * @param aTime The time as "HH" or "HH:MM", non-null
+     * @return Minutes since midnight
+     */
+    public static int parseMinuteOfDay(String aTime) {
+        int indexOfColon = aTime.indexOf(":");
+        if (indexOfColon < 0)
+            return Integer.parseInt(aTime.trim()) * 60;
+        int hours = Integer.parseInt(aTime.substring(0, indexOfColon).trim());
+        int minutes = Integer.parseInt(aTime.substring(indexOfColon + 1).trim());
+        return (hours * 60) + minutes;
+    }
+
+    /**
+     * Transform minutes into the day into a "H:MM" time
+     * @param minuteOfDay Minutes since midnight
+     * @return The time as "H:MM"
+     */
+    public static String formatMinuteOfDay(int minuteOfDay) {
+        int minutes = minuteOfDay % 60;
+        return (minuteOfDay / 60) + (minutes < 10 ? ":0" : ":") + minutes;
+    }
 	
 	
 	
@@ -0,0 +1,92 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+// Represent a latitude/longitude rectangle. Boxes do not wrap around the antimeridian.
+public class GeoBox {
+
+	// Mean earth radius in metres, the same as LatLon.distanceBetweenTwoLatLon
+	public static final double EARTH_RADIUS = 6367000;
+
+	private double minLat;
+	private double maxLat;
+	private double minLon;
+	private double maxLon;
+
+    /**
+     * Constructor
+     * @param minLat Southern edge
+     * @param maxLat Northern edge
+     * @param minLon Western edge
+     * @param maxLon Eastern edge
+     */
+	public GeoBox(double minLat, double maxLat, double minLon, double maxLon) {
+		this.minLat = minLat;
+		this.maxLat = maxLat;
+		this.minLon = minLon;
+		this.maxLon = maxLon;
+	}
+
+    /**
+     * Find the smallest box guaranteed to hold every point within distance metres of
+     * centre, measured as LatLon.distanceBetweenTwoLatLon does
+     * @param centre The centre of the circle
+     * @param distance The radius of the circle in metres, >= 0
+     * @return The box around the circle
+     */
+	public static GeoBox around(LatLon centre, double distance) {
+		// Any two points are at least EARTH_RADIUS * (difference in latitude) apart
+		double angle = distance / EARTH_RADIUS;
+		double dLat = Math.toDegrees(angle);
+		double minLat = centre.getLatitude() - dLat;
+		double maxLat = centre.getLatitude() + dLat;
+
+		// The haversine term cos(lat1) cos(lat2) sin^2(dLon / 2) can be no more than
+		// sin^2(angle / 2), and both cosines are at least the cosine of the latitude
+		// furthest from the equator
+		double furthestLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+		double dLon = 180;
+		if (furthestLat < 90) {
+			double sinHalfLon = Math.sin(Math.min(angle, Math.PI) / 2) / Math.cos(Math.toRadians(furthestLat));
+			if (sinHalfLon < 1)
+				dLon = Math.toDegrees(2 * Math.asin(sinHalfLon));
+		}
+		// Pad a little so rounding never drops a point on the boundary
+		double padLat = 1e-9 + dLat * 1e-9;
+		double padLon = 1e-9 + dLon * 1e-9;
+		return new GeoBox(minLat - padLat, maxLat + padLat,
+				centre.getLongitude() - dLon - padLon, centre.getLongitude() + dLon + padLon);
+	}
+
+    /**
+     * Intersect this box with another
+     * @param other The other box
+     * @return The intersection, which may be empty
+     */
+	public GeoBox intersect(GeoBox other) {
+		return new GeoBox(Math.max(minLat, other.minLat), Math.min(maxLat, other.maxLat),
+				Math.max(minLon, other.minLon), Math.min(maxLon, other.maxLon));
+	}
+
+	public boolean isEmpty() {
+		return minLat > maxLat || minLon > maxLon;
+	}
+
+	public boolean contains(double lat, double lon) {
+		return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+	}
+
+	public double getMinLatitude() {
+		return minLat;
+	}
+
+	public double getMaxLatitude() {
+		return maxLat;
+	}
+
+	public double getMinLongitude() {
+		return minLon;
+	}
+
+	public double getMaxLongitude() {
+		return maxLon;
+	}
+}
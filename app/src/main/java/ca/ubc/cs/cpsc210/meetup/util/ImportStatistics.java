@@ -0,0 +1,70 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+/**
+ * Represents how a bulk import of students went
+ */
+public class ImportStatistics {
+
+    // What was read
+    private int students;
+    private int sections;
+    // Sections that could not be found in the catalog or clash with the schedule
+    private int skippedSections;
+    // Students without an id
+    private int skippedStudents;
+    // Time taken in nanoseconds
+    private long elapsedNanos;
+
+    /**
+     * Constructor
+     * @param students Number of students read and stored or merged with an existing student
+     * @param sections Number of sections added to schedules
+     * @param skippedStudents Number of students that could not be imported
+     * @param skippedSections Number of sections that could not be added
+     * @param elapsedNanos How long the import took
+     */
+    public ImportStatistics(int students, int sections, int skippedStudents, int skippedSections,
+                            long elapsedNanos) {
+        this.students = students;
+        this.sections = sections;
+        this.skippedStudents = skippedStudents;
+        this.skippedSections = skippedSections;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getStudents() {
+        return students;
+    }
+
+    public int getSections() {
+        return sections;
+    }
+
+    public int getSkippedStudents() {
+        return skippedStudents;
+    }
+
+    public int getSkippedSections() {
+        return skippedSections;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000L;
+    }
+
+    /**
+     * Retrieve the throughput of the import
+     * @return Students imported per second
+     */
+    public double getStudentsPerSecond() {
+        if (elapsedNanos == 0)
+            return 0;
+        return students * 1e9 / elapsedNanos;
+    }
+
+    public String toString() {
+        return students + " students, " + sections + " sections in " + getElapsedMillis() + " ms ("
+                + Math.round(getStudentsPerSecond()) + " students/s), skipped "
+                + skippedStudents + " students and " + skippedSections + " sections";
+    }
+}
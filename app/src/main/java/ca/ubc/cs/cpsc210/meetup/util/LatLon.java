@@ -1,10 +1,11 @@
 package ca.ubc.cs.cpsc210.meetup.util;
 
-// Represent a latitude and longitude
+// Represent a latitude and longitude, held as whole microdegrees (degrees * 10^6,
+// "E6") like osmdroid's GeoPoint, which is about 11 cm of latitude
 public class LatLon {
 
-	private double lat;
-	private double lon;
+	private int latE6;
+	private int lonE6;
 
 	private static final double ANTARCTICA_LAT = 90.0000;
 	private static final double ANTARCTICA_LON = 0.0000;
@@ -15,16 +16,37 @@ public class LatLon {
      * @param lon Longitude
      */
 	public LatLon(double lat, double lon) {
-		this.lat = lat;
-		this.lon = lon;
+		latE6 = toE6(lat);
+		lonE6 = toE6(lon);
 	}
 
     /**
      * Constructor that sets default values
      */
 	public LatLon() {
-		this.lat = ANTARCTICA_LAT;
-		this.lon = ANTARCTICA_LON;
+		this(ANTARCTICA_LAT, ANTARCTICA_LON);
+	}
+
+    /**
+     * Create a lat/lon from microdegrees
+     * @param latE6 Latitude * 10^6
+     * @param lonE6 Longitude * 10^6
+     * @return The lat/lon
+     */
+	public static LatLon fromE6(int latE6, int lonE6) {
+		LatLon latLon = new LatLon();
+		latLon.latE6 = latE6;
+		latLon.lonE6 = lonE6;
+		return latLon;
+	}
+
+    /**
+     * Convert degrees to the nearest whole microdegree
+     * @param degrees Degrees
+     * @return Degrees * 10^6, rounded
+     */
+	public static int toE6(double degrees) {
+		return (int) Math.round(degrees * 1E6);
 	}
 
     /**
@@ -32,34 +54,54 @@ public class LatLon {
      * @return True if legal and false otherwise
      */
 	public boolean isIllegal() {
-		if (lat < 0 || lat > 90 || lon < -180 || lon > 180)
+		if (latE6 < 0 || latE6 > 90000000 || lonE6 < -180000000 || lonE6 > 180000000)
 			return true;
 		return false;
 	}
 
 	public double getLongitude() {
-		return lon;
+		return lonE6 / 1E6;
 	}
 
 	public double getLatitude() {
-		return lat;
+		return latE6 / 1E6;
+	}
+
+	public int getLongitudeE6() {
+		return lonE6;
+	}
+
+	public int getLatitudeE6() {
+		return latE6;
 	}
 
     /**
-     * Determien the distance in metres between two points
+     * Determien the distance in metres between two points. This is the exact haversine
+     * distance; CampusDistance answers "within d metres" tests more quickly.
      * @param point1 The first point
      * @param point2 The second point
      * @return Distance in metres
      */
 	public static double distanceBetweenTwoLatLon(LatLon point1, LatLon point2) {
+		return distanceBetween(point1.getLatitude(), point1.getLongitude(),
+				point2.getLatitude(), point2.getLongitude());
+	}
+
+    /**
+     * Determine the distance in metres between two points given as latitudes and longitudes
+     * @return Distance in metres
+     */
+	public static double distanceBetween(double lat1, double lon1, double lat2, double lon2) {
 		double d2r = Math.PI / 180;
 
-		double dlong = (point2.getLongitude() - point1.getLongitude()) * d2r;
-		double dlat = (point2.getLatitude() - point1.getLatitude()) * d2r;
-		double a = Math.pow(Math.sin(dlat / 2.0), 2)
-				+ Math.cos(point1.getLatitude() * d2r)
-				* Math.cos(point2.getLatitude() * d2r)
-				* Math.pow(Math.sin(dlong / 2.0), 2);
+		double dlong = (lon2 - lon1) * d2r;
+		double dlat = (lat2 - lat1) * d2r;
+		double sinHalfLat = Math.sin(dlat / 2.0);
+		double sinHalfLong = Math.sin(dlong / 2.0);
+		double a = sinHalfLat * sinHalfLat
+				+ Math.cos(lat1 * d2r)
+				* Math.cos(lat2 * d2r)
+				* sinHalfLong * sinHalfLong;
 		double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
 		double d = 6367 * c;
 		d = d * 1000;
@@ -70,11 +112,8 @@ public class LatLon {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		long temp;
-		temp = Double.doubleToLongBits(lat);
-		result = prime * result + (int) (temp ^ (temp >>> 32));
-		temp = Double.doubleToLongBits(lon);
-		result = prime * result + (int) (temp ^ (temp >>> 32));
+		result = prime * result + latE6;
+		result = prime * result + lonE6;
 		return result;
 	}
 
@@ -87,11 +126,7 @@ public class LatLon {
 		if (getClass() != obj.getClass())
 			return false;
 		LatLon other = (LatLon) obj;
-		if (Double.doubleToLongBits(lat) != Double.doubleToLongBits(other.lat))
-			return false;
-		if (Double.doubleToLongBits(lon) != Double.doubleToLongBits(other.lon))
-			return false;
-		return true;
+		return latE6 == other.latE6 && lonE6 == other.lonE6;
 	}
 
 }
@@ -0,0 +1,116 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collect the results of futures that were started together, in the order they were
+ * started, under one deadline shared by all of them. A future that fails is left out
+ * and the rest are still collected. When the deadline passes, or whoever is waiting
+ * is cancelled or interrupted, the futures not collected yet are cancelled.
+ */
+public class OrderedFutures {
+
+    /**
+     * Whoever is waiting for the results
+     */
+    public interface Waiter {
+        /**
+         * @return True if the results are no longer wanted
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Told about the futures that are left out
+     */
+    public interface Listener {
+        /**
+         * A future failed
+         * @param index The index of the future
+         * @param cause Why it failed
+         */
+        void failed(int index, Throwable cause);
+
+        /**
+         * The deadline passed before a future was done, so it and every future after it are left out
+         * @param index The index of the future
+         */
+        void timedOut(int index);
+    }
+
+    private OrderedFutures() {
+    }
+
+    /**
+     * Wait for each future in turn until the deadline, checking every checkMillis
+     * whether the waiter has been cancelled
+     * @param futures The futures, in order
+     * @param deadline When to give up, as System.nanoTime()
+     * @param checkMillis How often to check the waiter, > 0
+     * @param waiter Whoever is waiting
+     * @param listener Told about the futures left out
+     * @return The result of each future, or null where it was left out
+     */
+    public static <T> List<T> await(List<? extends Future<T>> futures, long deadline, long checkMillis,
+                                    Waiter waiter, Listener listener) {
+        List<T> results = new ArrayList<T>(futures.size());
+        for (int i = 0; i < futures.size(); i++)
+            results.add(null);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.set(i, await(futures.get(i), deadline, checkMillis, waiter));
+            } catch (ExecutionException e) {
+                listener.failed(i, e.getCause());
+            } catch (TimeoutException e) {
+                cancel(futures);
+                listener.timedOut(i);
+                break;
+            } catch (CancellationException e) {
+                if (waiter.isCancelled()) {
+                    cancel(futures);
+                    break;
+                }
+                // Only this future was cancelled, leave it out
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Wait for one future until the deadline, checking whether the waiter has been cancelled
+     * @throws CancellationException if the future or the waiter is cancelled
+     * @throws TimeoutException if the deadline passes first
+     */
+    private static <T> T await(Future<T> future, long deadline, long checkMillis, Waiter waiter)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        long checkNanos = TimeUnit.MILLISECONDS.toNanos(checkMillis);
+        while (true) {
+            if (waiter.isCancelled())
+                throw new CancellationException("Waiter cancelled");
+            long remaining = deadline - System.nanoTime();
+            // A future that is already done is used even if the deadline has just passed
+            if (remaining <= 0 && !future.isDone())
+                throw new TimeoutException();
+            try {
+                return future.get(Math.max(0, Math.min(remaining, checkNanos)), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Check the waiter and the deadline again
+            }
+        }
+    }
+
+    private static void cancel(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures)
+            future.cancel(true);
+    }
+}
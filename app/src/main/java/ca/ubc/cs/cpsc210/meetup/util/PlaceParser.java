@@ -0,0 +1,188 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.ubc.cs.cpsc210.meetup.model.Place;
+
+/**
+ * Read places out of a Foursquare venues/explore response:
+ * {"response": {"groups": [{"items": [{"venue": {"name": ..., "location": {"lat": ..., "lng": ...},
+ *  "price": {"tier": ...}, "categories": [{"name": ...}, ...]}}, ...]}, ...]}}
+ * The response is parsed as a stream, straight into places, and everything
+ * else in it is skipped without being kept. A venue with no name or location
+ * is left out; one with no price gets Place.UNKNOWN_PRICE.
+ */
+public class PlaceParser {
+
+    private List<Place> places;
+
+    private PlaceParser() {
+        places = new ArrayList<Place>();
+    }
+
+    /**
+     * Read the places
+     * @param in The response, it is not closed
+     * @return The places, in the order of the response
+     * @throws IOException if the reader fails or the response is not well-formed JSON
+     */
+    public static List<Place> parse(Reader in) throws IOException {
+        PlaceParser parser = new PlaceParser();
+        parser.read(new JsonReader(in));
+        return parser.places;
+    }
+
+    private void read(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("response") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (field.equals("groups") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext())
+                            readGroup(reader);
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readGroup(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("items") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    readItem(reader);
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readItem(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("venue") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readVenue(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readVenue(JsonReader reader) throws IOException {
+        String venueName = null;
+        LatLon latLon = null;
+        String category = null;
+        int tier = Place.UNKNOWN_PRICE;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("name")) {
+                venueName = reader.nextString();
+            } else if (name.equals("location")) {
+                latLon = readLocation(reader);
+            } else if (name.equals("price")) {
+                tier = readTier(reader);
+            } else if (name.equals("categories")) {
+                category = readFirstCategory(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (venueName != null && latLon != null)
+            places.add(new Place(venueName, latLon, category, tier));
+    }
+
+    /**
+     * @return Where the venue is, or null if the location has no lat/lon
+     */
+    private static LatLon readLocation(JsonReader reader) throws IOException {
+        double lat = Double.NaN;
+        double lon = Double.NaN;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("lat")) {
+                lat = reader.nextDouble();
+            } else if (name.equals("lng")) {
+                lon = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return (Double.isNaN(lat) || Double.isNaN(lon)) ? null : new LatLon(lat, lon);
+    }
+
+    private static int readTier(JsonReader reader) throws IOException {
+        int tier = Place.UNKNOWN_PRICE;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("tier") && reader.peek() == JsonToken.NUMBER) {
+                int value = reader.nextInt();
+                tier = (value >= 0) ? value : Place.UNKNOWN_PRICE;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return tier;
+    }
+
+    /**
+     * @return The name of the first category, or null if there is none
+     */
+    private static String readFirstCategory(JsonReader reader) throws IOException {
+        String category = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (category != null) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("name") && reader.peek() == JsonToken.STRING) {
+                    category = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+        return category;
+    }
+}
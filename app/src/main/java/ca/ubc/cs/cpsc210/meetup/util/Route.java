@@ -0,0 +1,76 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.List;
+
+/**
+ * Represent a route between two points as returned by the routing service:
+ * the shape of the route as microdegree (E6) latitude/longitude pairs and how
+ * long it takes to travel.
+ */
+public class Route {
+
+    // Latitude and longitude of each point in turn, in microdegrees
+    private int[] shapeE6;
+
+    // Travel time in seconds, or a negative number if not known
+    private double time;
+
+    /**
+     * Constructor
+     * @param shapeE6 Latitude and longitude of each point in turn, in microdegrees.
+     *                The array is not copied.
+     * @param time Travel time in seconds, or a negative number if not known
+     */
+    public Route(int[] shapeE6, double time) {
+        this.shapeE6 = shapeE6;
+        this.time = time;
+    }
+
+    public int getNumberOfPoints() {
+        return shapeE6.length / 2;
+    }
+
+    public int getLatitudeE6(int point) {
+        return shapeE6[2 * point];
+    }
+
+    public int getLongitudeE6(int point) {
+        return shapeE6[2 * point + 1];
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Join legs end to end into one route. The time is the sum of the legs' times,
+     * or negative if any leg's time is not known.
+     * @param legs The legs in the order they are travelled
+     * @return The joined route, with no points if there are no legs
+     */
+    public static Route join(List<Route> legs) {
+        int length = 0;
+        double time = 0;
+        for (Route leg : legs) {
+            length += leg.shapeE6.length;
+            if (leg.time < 0 || time < 0)
+                time = -1;
+            else
+                time += leg.time;
+        }
+        int[] shapeE6 = new int[length];
+        int offset = 0;
+        for (Route leg : legs) {
+            System.arraycopy(leg.shapeE6, 0, shapeE6, offset, leg.shapeE6.length);
+            offset += leg.shapeE6.length;
+        }
+        return new Route(shapeE6, time);
+    }
+
+    /**
+     * The shape as stored, for writing the route out. Do not modify it.
+     */
+    int[] getShapeE6() {
+        return shapeE6;
+    }
+}
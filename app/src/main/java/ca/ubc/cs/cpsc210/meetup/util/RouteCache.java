@@ -0,0 +1,288 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+
+/**
+ * Remember routes between buildings so that the routing service is asked
+ * for each leg only once. Routes are keyed by the building they start at, the
+ * building they end at and the route type (such as "pedestrian").
+ *
+ * There are two tiers. The most recently used routes are kept in memory. Every
+ * route is also written to a directory, one file per route, where it stays
+ * until it is older than the time to live or the directory grows past its size
+ * cap, at which point the least recently used files are removed. A route found
+ * on disk is moved back into memory. Routes older than the time to live are
+ * not used from either tier.
+ *
+ * Only the memory tier is locked, so threads fetching different legs never wait
+ * on each other's disk reads and writes. A file is written under a temporary
+ * name and renamed into place, so a reader never sees half a route. The
+ * directory is trimmed on the first put and then every TRIM_INTERVAL puts.
+ */
+public class RouteCache {
+
+    public static final int DEFAULT_MEMORY_ENTRIES = 64;
+    public static final long DEFAULT_TIME_TO_LIVE = 7L * 24 * 60 * 60 * 1000;
+    public static final long DEFAULT_DISK_BYTES = 2L * 1024 * 1024;
+
+    // How many puts there are between trims of the directory
+    public static final int TRIM_INTERVAL = 32;
+
+    // Identifies a route file and its layout
+    private static final int FILE_MAGIC = 0x4D525445; // "MRTE"
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".route";
+    // createTempFile needs a prefix of at least three characters
+    private static final String TEMPORARY_PREFIX = "route";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // A temporary file this old is not being written any more
+    private static final long STALE_TEMPORARY_MILLIS = 60 * 1000;
+
+    // Lock on this to use it
+    private Map<String, CachedRoute> memory;
+    private File directory;
+    private long timeToLive;
+    private long maxDiskBytes;
+
+    // Puts so far, to know when to trim the directory
+    private AtomicInteger puts;
+
+    // Held while trimming so that two trims do not race over the same files
+    private final Object trimLock = new Object();
+
+    /**
+     * Constructor with the default sizes and time to live
+     * @param directory Where to keep routes on disk, created if need be
+     */
+    public RouteCache(File directory) {
+        this(directory, DEFAULT_MEMORY_ENTRIES, DEFAULT_TIME_TO_LIVE, DEFAULT_DISK_BYTES);
+    }
+
+    /**
+     * Constructor
+     * @param directory Where to keep routes on disk, created if need be
+     * @param memoryEntries How many routes to keep in memory, > 0
+     * @param timeToLive How long a route stays usable on disk, in milliseconds
+     * @param maxDiskBytes How much disk the routes may take
+     */
+    public RouteCache(File directory, final int memoryEntries, long timeToLive, long maxDiskBytes) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.maxDiskBytes = maxDiskBytes;
+        puts = new AtomicInteger();
+        memory = new LinkedHashMap<String, CachedRoute>(memoryEntries * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRoute> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * Look up a route
+     * @param from The building the route starts at
+     * @param to The building the route ends at
+     * @param routeType The kind of route
+     * @return The route, or null if it is not cached or has expired
+     */
+    public Route get(Building from, Building to, String routeType) {
+        String key = key(from, to, routeType);
+        synchronized (memory) {
+            CachedRoute cached = memory.get(key);
+            if (cached != null) {
+                if (!isExpired(cached.savedAt))
+                    return cached.route;
+                memory.remove(key);
+            }
+        }
+
+        File file = fileFor(key);
+        if (!file.exists())
+            return null;
+        CachedRoute cached;
+        try {
+            cached = read(file, key);
+        } catch (IOException e) {
+            cached = null;
+        }
+        if (cached == null) {
+            file.delete();
+            return null;
+        }
+        // Remember the use so that this file is kept over ones not read lately
+        file.setLastModified(System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+        return cached.route;
+    }
+
+    /**
+     * Remember a route in both tiers
+     * @param from The building the route starts at
+     * @param to The building the route ends at
+     * @param routeType The kind of route
+     * @param route The route, non-null
+     */
+    public void put(Building from, Building to, String routeType, Route route) {
+        String key = key(from, to, routeType);
+        CachedRoute cached = new CachedRoute(route, System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs())
+            return;
+        File temporary = null;
+        try {
+            temporary = File.createTempFile(TEMPORARY_PREFIX, TEMPORARY_SUFFIX, directory);
+            write(temporary, key, cached);
+            if (!temporary.renameTo(fileFor(key)))
+                throw new IOException("Could not rename " + temporary);
+        } catch (IOException e) {
+            // The route is still in memory, it will be fetched again next time the app starts
+            if (temporary != null)
+                temporary.delete();
+        }
+        if (puts.getAndIncrement() % TRIM_INTERVAL == 0)
+            trimDisk();
+    }
+
+    /**
+     * Forget every route in memory, leaving those on disk
+     */
+    public void clearMemory() {
+        synchronized (memory) {
+            memory.clear();
+        }
+    }
+
+    private boolean isExpired(long savedAt) {
+        return System.currentTimeMillis() - savedAt > timeToLive;
+    }
+
+    /**
+     * Read a route file, checking that it holds the route wanted and has not expired
+     */
+    private CachedRoute read(File file, String key) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+                return null;
+            if (!in.readUTF().equals(key))
+                return null;
+            long savedAt = in.readLong();
+            if (isExpired(savedAt))
+                return null;
+            double time = in.readDouble();
+            int length = in.readInt();
+            int[] shapeE6 = new int[length];
+            for (int i = 0; i < length; i++)
+                shapeE6[i] = in.readInt();
+            return new CachedRoute(new Route(shapeE6, time), savedAt);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(File file, String key, CachedRoute cached) throws IOException {
+        Route route = cached.route;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(key);
+            out.writeLong(cached.savedAt);
+            out.writeDouble(route.getTime());
+            int[] shapeE6 = route.getShapeE6();
+            out.writeInt(shapeE6.length);
+            for (int value : shapeE6)
+                out.writeInt(value);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Remove expired route files and temporary files left behind by a crash, then the
+     * least recently used route files until the rest fit the cap
+     */
+    private void trimDisk() {
+        synchronized (trimLock) {
+            trimDiskLocked();
+        }
+    }
+
+    private void trimDiskLocked() {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        long now = System.currentTimeMillis();
+        long total = 0;
+        int kept = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(TEMPORARY_SUFFIX) && now - file.lastModified() > STALE_TEMPORARY_MILLIS) {
+                file.delete();
+                continue;
+            }
+            if (!file.getName().endsWith(FILE_SUFFIX))
+                continue;
+            if (now - file.lastModified() > timeToLive) {
+                file.delete();
+            } else {
+                files[kept++] = file;
+                total += file.length();
+            }
+        }
+        if (total <= maxDiskBytes)
+            return;
+
+        File[] oldestFirst = Arrays.copyOf(files, kept);
+        Arrays.sort(oldestFirst, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long difference = a.lastModified() - b.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+        for (int i = 0; i < oldestFirst.length && total > maxDiskBytes; i++) {
+            total -= oldestFirst[i].length();
+            oldestFirst[i].delete();
+        }
+    }
+
+    private File fileFor(String key) {
+        // The key itself is stored in the file, so a clash of hashes is only a miss
+        return new File(directory, Integer.toHexString(key.hashCode()) + FILE_SUFFIX);
+    }
+
+    private static String key(Building from, Building to, String routeType) {
+        return from.getName() + "|" + to.getName() + "|" + routeType;
+    }
+
+    /*
+     * A route with when it was fetched
+     */
+    private static class CachedRoute {
+        private Route route;
+        private long savedAt;
+
+        CachedRoute(Route route, long savedAt) {
+            this.route = route;
+            this.savedAt = savedAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+/**
+ * A route simplified for each zoom level of the map, so that drawing it at a
+ * low zoom does not go through points that would land on the same pixel.
+ *
+ * Douglas-Peucker is run once over the whole route, recording for each point
+ * the largest tolerance at which it would still be kept. A zoom level then
+ * keeps the points that matter at more than a pixel, which gives the same
+ * points as running Douglas-Peucker at that tolerance.
+ */
+public class RouteLevels {
+
+    // Zoom levels past this draw every point
+    public static final int MAX_ZOOM = 22;
+
+    // How far, in pixels, the simplified route may stray from the full one
+    private static final double TOLERANCE_PIXELS = 1.0;
+
+    // Size of a map tile in pixels, at zoom 0 the whole world is one tile
+    private static final int TILE_SIZE = 256;
+
+    // Metres per microdegree of latitude, measured as LatLon.distanceBetweenTwoLatLon does
+    private static final double METRES_PER_E6 = Math.toRadians(GeoBox.EARTH_RADIUS) / 1E6;
+
+    // The full route, and the route at each zoom level up to MAX_ZOOM. Levels that
+    // keep the same points share one array.
+    private int[] shapeE6;
+    private int[][] levels;
+
+    /**
+     * Constructor
+     * @param shapeE6 Latitude and longitude of each point in turn, in microdegrees.
+     *                The array is not copied.
+     */
+    public RouteLevels(int[] shapeE6) {
+        this.shapeE6 = shapeE6;
+        int numberOfPoints = shapeE6.length / 2;
+        levels = new int[MAX_ZOOM + 1][];
+        if (numberOfPoints <= 2) {
+            for (int zoom = 0; zoom <= MAX_ZOOM; zoom++)
+                levels[zoom] = shapeE6;
+            return;
+        }
+
+        double[] significance = significance(shapeE6);
+        double metresPerPixel = 2 * Math.PI * GeoBox.EARTH_RADIUS
+                * Math.cos(Math.toRadians(shapeE6[0] / 1E6)) / TILE_SIZE;
+        int[] previous = null;
+        for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+            double tolerance = TOLERANCE_PIXELS * metresPerPixel / (1L << zoom);
+            int kept = 0;
+            for (double s : significance) {
+                if (s > tolerance)
+                    kept++;
+            }
+            if (previous != null && previous.length == 2 * kept) {
+                levels[zoom] = previous;
+                continue;
+            }
+            int[] level = new int[2 * kept];
+            int k = 0;
+            for (int i = 0; i < numberOfPoints; i++) {
+                if (significance[i] > tolerance) {
+                    level[k++] = shapeE6[2 * i];
+                    level[k++] = shapeE6[2 * i + 1];
+                }
+            }
+            levels[zoom] = level;
+            previous = level;
+        }
+    }
+
+    /**
+     * Find the largest tolerance in metres at which Douglas-Peucker keeps each point.
+     * A point is never kept at a tolerance where the point that split its part of the
+     * route is dropped, so the tolerances of the points are capped by those of their parents.
+     */
+    private static double[] significance(int[] shapeE6) {
+        int numberOfPoints = shapeE6.length / 2;
+        // Flatten onto a plane around the start, which is close enough across a campus
+        double cosLat = Math.cos(Math.toRadians(shapeE6[0] / 1E6));
+        double[] x = new double[numberOfPoints];
+        double[] y = new double[numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++) {
+            y[i] = shapeE6[2 * i] * METRES_PER_E6;
+            x[i] = shapeE6[2 * i + 1] * METRES_PER_E6 * cosLat;
+        }
+
+        double[] significance = new double[numberOfPoints];
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[numberOfPoints - 1] = Double.POSITIVE_INFINITY;
+
+        // Parts of the route still to split: first point, last point, and the cap
+        // from the point that split them off, kept on a stack to avoid deep recursion
+        int[] firsts = new int[numberOfPoints];
+        int[] lasts = new int[numberOfPoints];
+        double[] caps = new double[numberOfPoints];
+        int top = 0;
+        firsts[0] = 0;
+        lasts[0] = numberOfPoints - 1;
+        caps[0] = Double.POSITIVE_INFINITY;
+        top++;
+        while (top > 0) {
+            top--;
+            int first = firsts[top];
+            int last = lasts[top];
+            double cap = caps[top];
+            if (last - first < 2)
+                continue;
+
+            int furthest = -1;
+            double furthestDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = distanceToSegment(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > furthestDistance) {
+                    furthestDistance = d;
+                    furthest = i;
+                }
+            }
+            double s = Math.min(furthestDistance, cap);
+            significance[furthest] = s;
+
+            firsts[top] = first;
+            lasts[top] = furthest;
+            caps[top] = s;
+            top++;
+            firsts[top] = furthest;
+            lasts[top] = last;
+            caps[top] = s;
+            top++;
+        }
+        return significance;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0)
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    /**
+     * Get the route as drawn at a zoom level
+     * @param zoomLevel The zoom level of the map
+     * @return Latitude and longitude of each point in turn, in microdegrees. The same
+     *         array is returned each time for the same points, and it must not be changed.
+     */
+    public int[] getShapeE6(int zoomLevel) {
+        if (zoomLevel > MAX_ZOOM)
+            return shapeE6;
+        return levels[Math.max(0, zoomLevel)];
+    }
+
+    public int getNumberOfPoints() {
+        return shapeE6.length / 2;
+    }
+}
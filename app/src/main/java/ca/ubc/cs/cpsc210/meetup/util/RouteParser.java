@@ -0,0 +1,112 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Read a route out of a MapQuest directions response:
+ * {"route": {"time": ..., "shape": {"shapePoints": [lat, lon, lat, lon, ...], ...}, ...}, ...}
+ * The response is parsed as a stream, straight into the points of the route,
+ * and everything else in it is skipped without being kept.
+ */
+public class RouteParser {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The route being read
+    private int[] shapeE6;
+    private int shapeLength;
+    private double time;
+
+    private RouteParser() {
+        shapeE6 = new int[INITIAL_CAPACITY];
+        time = -1;
+    }
+
+    /**
+     * Read a route
+     * @param in The response, it is not closed
+     * @return The route
+     * @throws IOException if the reader fails, the response is not well-formed JSON
+     *         or it holds no route
+     */
+    public static Route parse(Reader in) throws IOException {
+        return new RouteParser().read(new JsonReader(in));
+    }
+
+    private Route read(JsonReader reader) throws IOException {
+        boolean hasShape = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("route") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                hasShape = readRoute(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasShape)
+            throw new IOException("No route in response");
+        // A dangling latitude has no point to go with
+        int[] shape = new int[shapeLength / 2 * 2];
+        System.arraycopy(shapeE6, 0, shape, 0, shape.length);
+        return new Route(shape, time);
+    }
+
+    /**
+     * Read the route object
+     * @return Whether it has a shape
+     */
+    private boolean readRoute(JsonReader reader) throws IOException {
+        boolean hasShape = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("time")) {
+                time = reader.nextDouble();
+            } else if (name.equals("shape")) {
+                hasShape = readShape(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return hasShape;
+    }
+
+    /**
+     * Read the shape object
+     * @return Whether it has shape points
+     */
+    private boolean readShape(JsonReader reader) throws IOException {
+        boolean hasPoints = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("shapePoints") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (shapeLength == shapeE6.length) {
+                        int[] grown = new int[shapeE6.length * 2];
+                        System.arraycopy(shapeE6, 0, grown, 0, shapeLength);
+                        shapeE6 = grown;
+                    }
+                    shapeE6[shapeLength++] = LatLon.toE6(reader.nextDouble());
+                }
+                reader.endArray();
+                hasPoints = true;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return hasPoints;
+    }
+}
@@ -0,0 +1,195 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+
+/**
+ * A precomputed table of the walking route between every pair of buildings,
+ * read straight from a memory-mapped file. Looking up a leg reads one index
+ * entry and a slice of points, with no parsing.
+ *
+ * Routes are taken to be the same both ways, so each pair of buildings is
+ * stored once and read backwards for the other direction. The layout, with
+ * every number big-endian:
+ *   int magic, int version, int number of buildings n
+ *   int length in bytes, then the building names in UTF-8, one per line
+ *   for each pair i < j in the order j = 1..n-1, i = 0..j-1:
+ *     int offset of the first point, int number of points (-1 if no route),
+ *     float travel time in seconds
+ *   the points, each as int latitude and int longitude in microdegrees
+ */
+public class RouteTable {
+
+    // Identifies the file and its layout
+    private static final int MAGIC = 0x4D525442; // "MRTB"
+    private static final int VERSION = 1;
+    private static final int INDEX_ENTRY_BYTES = 12;
+
+    private ByteBuffer buffer;
+    private Map<String, Integer> buildingIndex;
+    private int indexStart;
+    private int pointsStart;
+
+    /**
+     * Constructor
+     * @param buffer The table, positioned anywhere
+     * @throws IOException if the buffer does not hold a route table
+     */
+    public RouteTable(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("Not a route table");
+            int numberOfBuildings = buffer.getInt(8);
+            int namesLength = buffer.getInt(12);
+            byte[] names = new byte[namesLength];
+            for (int i = 0; i < namesLength; i++)
+                names[i] = buffer.get(16 + i);
+            String[] nameList = (namesLength == 0) ? new String[0] : new String(names, "UTF-8").split("\n", -1);
+            if (nameList.length != numberOfBuildings)
+                throw new IOException("Route table has " + nameList.length + " names for "
+                        + numberOfBuildings + " buildings");
+            buildingIndex = new HashMap<String, Integer>();
+            for (int i = 0; i < nameList.length; i++)
+                buildingIndex.put(nameList[i], i);
+            indexStart = 16 + namesLength;
+            pointsStart = indexStart + INDEX_ENTRY_BYTES * pairs(numberOfBuildings);
+            if (pointsStart > buffer.limit())
+                throw new IOException("Route table is truncated");
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Route table is truncated");
+        }
+    }
+
+    /**
+     * Map a route table file into memory
+     * @param file The file, as written by write
+     * @return The table
+     * @throws IOException if the file cannot be mapped or is not a route table
+     */
+    public static RouteTable open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+            return new RouteTable(buffer);
+        } finally {
+            // The mapping stays valid after the file is closed
+            in.close();
+        }
+    }
+
+    /**
+     * Look up the route between two buildings
+     * @param from The building to start at
+     * @param to The building to end at
+     * @return The route, or null if either building is not in the table, there is no route
+     *         or the table is cut short before the route's points
+     */
+    public Route get(Building from, Building to) {
+        Integer a = buildingIndex.get(from.getName());
+        Integer b = buildingIndex.get(to.getName());
+        if (a == null || b == null || a.equals(b))
+            return null;
+
+        int entry = indexStart + INDEX_ENTRY_BYTES * pairIndex(a, b);
+        int offset = buffer.getInt(entry);
+        int numberOfPoints = buffer.getInt(entry + 4);
+        float time = buffer.getFloat(entry + 8);
+        if (numberOfPoints < 0)
+            return null;
+        // A table cut short in its points has no usable route here
+        if (offset < 0 || pointsStart + 8L * ((long) offset + numberOfPoints) > buffer.limit())
+            return null;
+
+        // Stored from the lower-numbered building, so read backwards the other way
+        boolean reversed = a > b;
+        int[] shapeE6 = new int[2 * numberOfPoints];
+        int position = pointsStart + 8 * offset;
+        for (int p = 0; p < numberOfPoints; p++) {
+            int index = reversed ? numberOfPoints - 1 - p : p;
+            shapeE6[2 * index] = buffer.getInt(position);
+            shapeE6[2 * index + 1] = buffer.getInt(position + 4);
+            position += 8;
+        }
+        return new Route(shapeE6, time);
+    }
+
+    public int getNumberOfBuildings() {
+        return buildingIndex.size();
+    }
+
+    /**
+     * Route every pair of buildings over the walkways and write the table
+     * @param buildings The buildings, in the order to store them
+     * @param router How to route between them
+     * @param out Where to write the table, it is flushed but not closed
+     * @return The number of pairs that could not be routed
+     * @throws IOException if the table cannot be written
+     */
+    public static int write(List<Building> buildings, CampusRouter router, OutputStream out) throws IOException {
+        int n = buildings.size();
+        Route[] routes = new Route[pairs(n)];
+        int unrouted = 0;
+        for (int j = 1; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                Route route = router.findRoute(buildings.get(i).getLatLon(), buildings.get(j).getLatLon());
+                routes[pairIndex(i, j)] = route;
+                if (route == null)
+                    unrouted++;
+            }
+        }
+
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                names.append('\n');
+            names.append(buildings.get(i).getName());
+        }
+        byte[] nameBytes = names.toString().getBytes("UTF-8");
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(n);
+        data.writeInt(nameBytes.length);
+        data.write(nameBytes);
+        int offset = 0;
+        for (Route route : routes) {
+            data.writeInt(offset);
+            data.writeInt(route == null ? -1 : route.getNumberOfPoints());
+            data.writeFloat(route == null ? 0 : (float) route.getTime());
+            if (route != null)
+                offset += route.getNumberOfPoints();
+        }
+        for (Route route : routes) {
+            if (route == null)
+                continue;
+            for (int p = 0; p < route.getNumberOfPoints(); p++) {
+                data.writeInt(route.getLatitudeE6(p));
+                data.writeInt(route.getLongitudeE6(p));
+            }
+        }
+        data.flush();
+        return unrouted;
+    }
+
+    private static int pairIndex(int a, int b) {
+        return (a < b) ? pairs(b) + a : pairs(a) + b;
+    }
+
+    // The number of pairs among n buildings, which is also where the pairs of building n start
+    private static int pairs(int n) {
+        return n * (n - 1) / 2;
+    }
+}
@@ -1,8 +1,5 @@
 package ca.ubc.cs.cpsc210.meetup.util;
 
-import org.osmdroid.util.GeoPoint;
-
-import java.util.List;
 import java.util.SortedSet;
 
 import ca.ubc.cs.cpsc210.meetup.model.Section;
@@ -18,7 +15,9 @@ public class SchedulePlot {
     // The colour to use in hex
     private String colourOfLine;
     // The route between the sections
-    private List<GeoPoint> route;
+    private Route route;
+    // The route simplified for each zoom level
+    private RouteLevels routeLevels;
     // The icon to use as R.drawable...
     private int iconToUseForBuilding;
     // Who is this schedule for
@@ -46,14 +45,26 @@ public class SchedulePlot {
         return colourOfLine;
     }
 
-    public void setRoute(List<GeoPoint> route) {
+    /**
+     * Set the route, and simplify it for each zoom level. This is called off the
+     * UI thread, so the work is done here rather than when the route is drawn.
+     * The route's points are used as they are, map points are only made for the
+     * ones drawn.
+     * @param route The route between the sections, non-null
+     */
+    public void setRoute(Route route) {
         this.route = route;
+        routeLevels = new RouteLevels(route.getShapeE6());
     }
 
-    public List<GeoPoint> getRoute() {
+    public Route getRoute() {
         return route;
     }
 
+    public RouteLevels getRouteLevels() {
+        return routeLevels;
+    }
+
     public int getIcon() { return iconToUseForBuilding; }
 
     public String getName() { return name; }
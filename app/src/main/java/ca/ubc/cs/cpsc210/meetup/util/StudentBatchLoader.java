@@ -0,0 +1,175 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ubc.cs.cpsc210.meetup.exceptions.ScheduleConflictException;
+import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.Section;
+import ca.ubc.cs.cpsc210.meetup.model.Student;
+import ca.ubc.cs.cpsc210.meetup.model.StudentManager;
+
+/**
+ * Store students and their schedules in a StudentManager in batches. Students
+ * are queued until a batch is full, then every section the batch names that has
+ * not been seen yet is looked up once in the CourseFactory, the students are
+ * stored together and their schedules filled in. It knows nothing about where the
+ * students come from; StudentImporter feeds it from JSON.
+ */
+public class StudentBatchLoader {
+
+    private StudentManager studentManager;
+    private CourseFactory courseFactory;
+    private int batchSize;
+
+    // Sections already looked up, keyed by SectionReference.getKey().
+    // A null value means the section does not exist.
+    private Map<String, Section> resolvedSections;
+
+    // The students queued but not stored yet, with the sections each one names
+    private List<Student> batch;
+    private List<List<SectionReference>> batchSections;
+
+    // Running totals
+    private long startTime;
+    private int students;
+    private int sections;
+    private int skippedStudents;
+    private int skippedSections;
+
+    /**
+     * Constructor
+     * @param studentManager Where to put the students, non-null
+     * @param courseFactory Where to look up sections, non-null
+     * @param batchSize How many students to queue before storing them, > 0
+     */
+    public StudentBatchLoader(StudentManager studentManager, CourseFactory courseFactory, int batchSize) {
+        this.studentManager = studentManager;
+        this.courseFactory = courseFactory;
+        this.batchSize = batchSize;
+        resolvedSections = new HashMap<String, Section>();
+        batch = new ArrayList<Student>(batchSize);
+        batchSections = new ArrayList<List<SectionReference>>(batchSize);
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Queue a student, storing the batch if it is full
+     * @param lastName The last name of the student, non-null
+     * @param firstName The first name of the student, non-null
+     * @param id The id of the student
+     * @param sectionReferences The sections the student is in, non-null
+     */
+    public void addStudent(String lastName, String firstName, int id, List<SectionReference> sectionReferences) {
+        batch.add(new Student(lastName, firstName, id));
+        batchSections.add(sectionReferences);
+        if (batch.size() >= batchSize)
+            flush();
+    }
+
+    /**
+     * Count a student that could not be read
+     */
+    public void skipStudent() {
+        skippedStudents++;
+    }
+
+    /**
+     * Count a section that could not be read
+     */
+    public void skipSection() {
+        skippedSections++;
+    }
+
+    /**
+     * Store the students still queued
+     * @return How the load went since this loader was made
+     */
+    public ImportStatistics finish() {
+        flush();
+        return new ImportStatistics(students, sections, skippedStudents, skippedSections,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Resolve every section the batch names that has not been seen yet, then
+     * store the students and fill in their schedules
+     */
+    private void flush() {
+        if (batch.isEmpty())
+            return;
+
+        for (List<SectionReference> references : batchSections) {
+            for (SectionReference reference : references) {
+                if (!resolvedSections.containsKey(reference.getKey())) {
+                    resolvedSections.put(reference.getKey(), courseFactory.getSection(reference.getCourseName(),
+                            reference.getCourseNumber(), reference.getSectionName()));
+                }
+            }
+        }
+
+        studentManager.addStudents(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            // A student whose id was already stored is merged with the stored one
+            Student student = studentManager.get(batch.get(i).getId());
+            for (SectionReference reference : batchSections.get(i)) {
+                Section section = resolvedSections.get(reference.getKey());
+                if (section == null) {
+                    skippedSections++;
+                    continue;
+                }
+                try {
+                    student.getSchedule().add(section);
+                    sections++;
+                } catch (ScheduleConflictException e) {
+                    skippedSections++;
+                }
+            }
+            students++;
+        }
+        batch.clear();
+        batchSections.clear();
+    }
+
+    /**
+     * A section named by a student, by course code, course number and section name
+     */
+    public static class SectionReference {
+        private String courseName;
+        private int courseNumber;
+        private String sectionName;
+        private String key;
+
+        /**
+         * Constructor
+         * @param courseName The four-letter course code, non-null
+         * @param courseNumber The course number
+         * @param sectionName The name of the section, non-null
+         */
+        public SectionReference(String courseName, int courseNumber, String sectionName) {
+            this.courseName = courseName;
+            this.courseNumber = courseNumber;
+            this.sectionName = sectionName;
+            key = courseName + " " + courseNumber + " " + sectionName;
+        }
+
+        public String getCourseName() {
+            return courseName;
+        }
+
+        public int getCourseNumber() {
+            return courseNumber;
+        }
+
+        public String getSectionName() {
+            return sectionName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.StudentManager;
+import ca.ubc.cs.cpsc210.meetup.util.StudentBatchLoader.SectionReference;
+
+/**
+ * Load students and their schedules into a StudentManager from JSON in the
+ * shape served by the Meetup web service:
+ * {"FirstName": ..., "LastName": ..., "Id": ...,
+ *  "Sections": [{"CourseName": ..., "CourseNumber": ..., "SectionName": ...}, ...]}
+ * The input may be a single student, an array of students or a sequence of
+ * students one after another. It is parsed as a stream and handed to a
+ * StudentBatchLoader, which holds only one batch of students in memory at a
+ * time, so inputs of any size can be loaded.
+ */
+public class StudentImporter {
+
+    // How many students to parse before resolving their sections and storing them
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    private StudentManager studentManager;
+    private int batchSize;
+
+    /**
+     * Constructor
+     * @param studentManager Where to put the students, non-null
+     */
+    public StudentImporter(StudentManager studentManager) {
+        this(studentManager, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param studentManager Where to put the students, non-null
+     * @param batchSize How many students to parse before storing them, > 0
+     */
+    public StudentImporter(StudentManager studentManager, int batchSize) {
+        this.studentManager = studentManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import all students from a UTF-8 stream
+     * @param in The stream to read, it is not closed
+     * @return How the import went
+     * @throws IOException if the stream cannot be read or is not well-formed JSON
+     */
+    public ImportStatistics importStudents(InputStream in) throws IOException {
+        return importStudents(new InputStreamReader(in, "UTF-8"));
+    }
+
+    /**
+     * Import all students from a reader
+     * @param in The reader to read, it is not closed
+     * @return How the import went
+     * @throws IOException if the reader fails or the input is not well-formed JSON
+     */
+    public ImportStatistics importStudents(Reader in) throws IOException {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, CourseFactory.getInstance(), batchSize);
+
+        JsonReader reader = new JsonReader(in);
+        reader.setLenient(true);
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    readStudent(reader, loader);
+                reader.endArray();
+            } else {
+                readStudent(reader, loader);
+            }
+        }
+        return loader.finish();
+    }
+
+    /**
+     * Parse one student object and hand it to the loader
+     */
+    private void readStudent(JsonReader reader, StudentBatchLoader loader) throws IOException {
+        String firstName = null;
+        String lastName = null;
+        int id = 0;
+        boolean hasId = false;
+        List<SectionReference> sections = new ArrayList<SectionReference>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("FirstName")) {
+                firstName = reader.nextString();
+            } else if (name.equals("LastName")) {
+                lastName = reader.nextString();
+            } else if (name.equals("Id")) {
+                id = reader.nextInt();
+                hasId = true;
+            } else if (name.equals("Sections")) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    readSection(reader, loader, sections);
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasId || firstName == null || lastName == null) {
+            loader.skipStudent();
+            return;
+        }
+        loader.addStudent(lastName, firstName, id, sections);
+    }
+
+    /**
+     * Parse one section reference of a student
+     */
+    private void readSection(JsonReader reader, StudentBatchLoader loader, List<SectionReference> sections)
+            throws IOException {
+        String courseName = null;
+        int courseNumber = -1;
+        String sectionName = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (name.equals("CourseName")) {
+                courseName = reader.nextString();
+            } else if (name.equals("CourseNumber")) {
+                courseNumber = reader.nextInt();
+            } else if (name.equals("SectionName")) {
+                sectionName = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (courseName == null || courseNumber < 0 || sectionName == null) {
+            loader.skipSection();
+            return;
+        }
+        sections.add(new SectionReference(courseName, courseNumber, sectionName));
+    }
+}
@@ -0,0 +1,179 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represent the walkways on campus as a graph: nodes at microdegree (E6)
+ * positions joined by walkable edges, stored as compact adjacency arrays.
+ * Edges can be walked both ways and are as long as the haversine distance
+ * between their ends.
+ *
+ * The text form has one record per line, fields separated by '|', and '#'
+ * comments. A node must be defined before a way uses it, and a way joins each
+ * of its nodes to the next (for example a path digitised from OpenStreetMap):
+ *   node|n17|49.264704|-123.247536
+ *   way|n17|n18|n19
+ */
+public class WalkwayGraph {
+
+    private int numberOfNodes;
+    private int[] latsE6;
+    private int[] lonsE6;
+
+    // The edges leaving node i are firstEdge[i] to firstEdge[i + 1] - 1
+    private int[] firstEdge;
+    private int[] edgeTargets;
+    private float[] edgeLengths;
+
+    /**
+     * Constructor
+     */
+    private WalkwayGraph(int[] latsE6, int[] lonsE6, List<int[]> edges) {
+        numberOfNodes = latsE6.length;
+        this.latsE6 = latsE6;
+        this.lonsE6 = lonsE6;
+
+        // Count the edges of each node, then fill them in
+        firstEdge = new int[numberOfNodes + 1];
+        for (int[] edge : edges) {
+            firstEdge[edge[0] + 1]++;
+            firstEdge[edge[1] + 1]++;
+        }
+        for (int i = 0; i < numberOfNodes; i++)
+            firstEdge[i + 1] += firstEdge[i];
+        edgeTargets = new int[2 * edges.size()];
+        edgeLengths = new float[2 * edges.size()];
+        int[] next = new int[numberOfNodes];
+        System.arraycopy(firstEdge, 0, next, 0, numberOfNodes);
+        for (int[] edge : edges) {
+            float length = (float) distance(edge[0], edge[1]);
+            edgeTargets[next[edge[0]]] = edge[1];
+            edgeLengths[next[edge[0]]++] = length;
+            edgeTargets[next[edge[1]]] = edge[0];
+            edgeLengths[next[edge[1]]++] = length;
+        }
+    }
+
+    /**
+     * Load the text form of a graph
+     * @param in The text to read, it is not closed
+     * @return The graph
+     * @throws IOException if the text cannot be read or is ill-formed
+     */
+    public static WalkwayGraph load(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        Map<String, Integer> nodeIndex = new HashMap<String, Integer>();
+        List<LatLon> nodes = new ArrayList<LatLon>();
+        List<int[]> edges = new ArrayList<int[]>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\\|", -1);
+            try {
+                if (fields[0].equals("node") && fields.length == 4) {
+                    String name = fields[1].trim();
+                    if (nodeIndex.containsKey(name))
+                        throw new IOException("Line " + lineNumber + ": node " + name + " defined twice");
+                    nodeIndex.put(name, nodes.size());
+                    nodes.add(new LatLon(Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim())));
+                } else if (fields[0].equals("way") && fields.length >= 3) {
+                    int previous = -1;
+                    for (int i = 1; i < fields.length; i++) {
+                        Integer node = nodeIndex.get(fields[i].trim());
+                        if (node == null)
+                            throw new IOException("Line " + lineNumber + ": unknown node " + fields[i]);
+                        if (previous >= 0 && previous != node)
+                            edges.add(new int[] { previous, node });
+                        previous = node;
+                    }
+                } else {
+                    throw new IOException("Line " + lineNumber + ": unknown record");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": bad number");
+            }
+        }
+
+        int[] latsE6 = new int[nodes.size()];
+        int[] lonsE6 = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            latsE6[i] = nodes.get(i).getLatitudeE6();
+            lonsE6[i] = nodes.get(i).getLongitudeE6();
+        }
+        return new WalkwayGraph(latsE6, lonsE6, edges);
+    }
+
+    /**
+     * Find the node nearest a point
+     * @param latLon The point
+     * @return The node, or -1 if the graph has no nodes
+     */
+    public int nearestNode(LatLon latLon) {
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numberOfNodes; i++) {
+            double d = LatLon.distanceBetween(latLon.getLatitude(), latLon.getLongitude(),
+                    getLatitude(i), getLongitude(i));
+            if (d < nearestDistance) {
+                nearest = i;
+                nearestDistance = d;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * The distance in metres between two nodes
+     */
+    public double distance(int a, int b) {
+        return LatLon.distanceBetween(getLatitude(a), getLongitude(a), getLatitude(b), getLongitude(b));
+    }
+
+    // ************** Getters ****************
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public int getLatitudeE6(int node) {
+        return latsE6[node];
+    }
+
+    public int getLongitudeE6(int node) {
+        return lonsE6[node];
+    }
+
+    public double getLatitude(int node) {
+        return latsE6[node] / 1E6;
+    }
+
+    public double getLongitude(int node) {
+        return lonsE6[node] / 1E6;
+    }
+
+    public int getFirstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    public int getEndOfEdges(int node) {
+        return firstEdge[node + 1];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public float getEdgeLength(int edge) {
+        return edgeLengths[edge];
+    }
+}
@@ -0,0 +1,336 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One client for every call the app makes to a web service. Connections are
+ * kept alive and reused between calls to the same host, responses are asked
+ * for gzipped, every call has connect and read timeouts, and only a few calls
+ * run at once however many threads ask. A caller whose result depends only on
+ * the URL can make a shared call: identical shared calls made while one is
+ * already in flight wait for it and share its result instead of going out again.
+ *
+ * HttpURLConnection only reuses a connection whose response has been read to
+ * the end and closed without disconnecting, so every response is drained and
+ * closed here whatever the caller did with it.
+ */
+public class WebServiceClient {
+
+    // How many calls may run at once, which is also how many idle connections are kept
+    public static final int MAX_CONCURRENT_REQUESTS = 4;
+
+    public static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    public static final int READ_TIMEOUT_MILLIS = 15000;
+
+    /**
+     * What to do with the body of a successful response
+     */
+    public interface ResponseHandler<T> {
+        /**
+         * @param body The body, decompressed and decoded as UTF-8. It is closed afterwards.
+         * @return The result of the call
+         * @throws IOException if the body cannot be read or is not what was expected
+         */
+        T handle(Reader body) throws IOException;
+    }
+
+    private Semaphore permits;
+
+    // The shared calls in flight, keyed by the caller's key and the normalised URL
+    private Map<String, FutureTask<?>> inFlight;
+
+    // Singleton
+    private static WebServiceClient instance = null;
+
+    /**
+     * Retrieve the one and only one client instance
+     */
+    public static synchronized WebServiceClient getInstance() {
+        if (instance == null)
+            instance = new WebServiceClient();
+        return instance;
+    }
+
+    /**
+     * Constructor. Only the singleton need access
+     */
+    protected WebServiceClient() {
+        permits = new Semaphore(MAX_CONCURRENT_REQUESTS, true);
+        inFlight = new HashMap<String, FutureTask<?>>();
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_CONCURRENT_REQUESTS));
+    }
+
+    /**
+     * Make a GET request and hand the body to a handler as it arrives. Every call
+     * goes out, even if the same URL is already being fetched.
+     * @param url The request URL
+     * @param handler What to do with the body
+     * @return Whatever the handler returns
+     * @throws IOException if the service cannot be reached, answers with an error or
+     *         the handler fails; InterruptedIOException if interrupted waiting
+     */
+    public <T> T get(String url, ResponseHandler<T> handler) throws IOException {
+        return getInTurn(url, handler);
+    }
+
+    /**
+     * Make a GET request like get, except that if a shared call with the same key
+     * and URL is already in flight, wait for that call and return its result instead.
+     * Only use this when every call of the URL gives the same answer, and the result
+     * is not changed afterwards, since callers may share it.
+     * @param key What the handler makes of the body, such as "route". Calls with
+     *            different keys are never shared, so handlers that give different
+     *            results for the same body must use different keys.
+     * @param url The request URL
+     * @param handler What to do with the body
+     * @return Whatever the handler returns, possibly shared with other callers
+     * @throws IOException if the service cannot be reached, answers with an error or
+     *         the handler fails; InterruptedIOException if interrupted waiting
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getShared(String key, final String url, final ResponseHandler<T> handler) throws IOException {
+        String flightKey = key + " " + normalise(url);
+        while (true) {
+            FutureTask<T> task;
+            boolean owner = false;
+            synchronized (inFlight) {
+                task = (FutureTask<T>) inFlight.get(flightKey);
+                if (task == null) {
+                    task = new FutureTask<T>(new Callable<T>() {
+                        @Override
+                        public T call() throws IOException {
+                            return getInTurn(url, handler);
+                        }
+                    });
+                    inFlight.put(flightKey, task);
+                    owner = true;
+                }
+            }
+
+            if (owner) {
+                // Run the call on this thread, then let later callers start a fresh one
+                try {
+                    task.run();
+                } finally {
+                    synchronized (inFlight) {
+                        inFlight.remove(flightKey);
+                    }
+                }
+            }
+
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + url);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                // The caller that made the call was interrupted, which says nothing
+                // about the call, so a caller that was waiting on it tries again
+                if (!owner && cause instanceof InterruptedIOException
+                        && !(cause instanceof SocketTimeoutException))
+                    continue;
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IOException("Call to " + url + " failed", cause);
+            }
+        }
+    }
+
+    /**
+     * Wait for a turn, then make the call
+     */
+    private <T> T getInTurn(String url, ResponseHandler<T> handler) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to call " + url);
+        }
+        try {
+            return call(url, handler);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Make a GET request and read the whole body. The call is never shared.
+     * @param url The request URL
+     * @return The body
+     * @throws IOException if the service cannot be reached or answers with an error
+     */
+    public String getString(String url) throws IOException {
+        return get(url, new ResponseHandler<String>() {
+            @Override
+            public String handle(Reader body) throws IOException {
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[4096];
+                int read;
+                while ((read = body.read(buffer)) != -1)
+                    text.append(buffer, 0, read);
+                return text.toString();
+            }
+        });
+    }
+
+    private <T> T call(String url, ResponseHandler<T> handler) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        // Asking for gzip ourselves means decompressing it ourselves, but works the
+        // same on every platform
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        int status;
+        try {
+            status = connection.getResponseCode();
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        if (status < 200 || status >= 300) {
+            // Read the error body too, so the connection can still be reused
+            InputStream error = connection.getErrorStream();
+            try {
+                if (error != null)
+                    drainAndClose(error);
+            } catch (IOException e) {
+                connection.disconnect();
+            }
+            throw new IOException("HTTP " + status + " from " + connection.getURL().getHost());
+        }
+
+        InputStream in;
+        try {
+            in = connection.getInputStream();
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        // The gzip stream holds a native inflater until it is closed
+        InputStream body = in;
+        T result;
+        try {
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+                body = new GZIPInputStream(in);
+            result = handler.handle(new InputStreamReader(body, "UTF-8"));
+        } catch (IOException e) {
+            // The rest of the response is not worth waiting for, give up the connection
+            closeQuietly(body);
+            connection.disconnect();
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(body);
+            connection.disconnect();
+            throw e;
+        }
+        try {
+            drainAndClose(in);
+        } catch (IOException e) {
+            // The call worked, only the connection is lost
+            connection.disconnect();
+        } finally {
+            closeQuietly(body);
+        }
+        return result;
+    }
+
+    /**
+     * Put a URL in a standard form, so that calls for the same resource are recognised:
+     * the scheme and host in lower case, no default port, no fragment, and the query
+     * parameters sorted by name. Parameters with the same name keep their order, since
+     * a=1&a=2 and a=2&a=1 can mean different things. A URL that cannot be parsed is
+     * left as it is.
+     * @param url The URL
+     * @return The normalised URL
+     */
+    public static String normalise(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (!uri.isAbsolute() || uri.isOpaque() || uri.getHost() == null)
+            return url;
+
+        String scheme = uri.getScheme().toLowerCase(Locale.US);
+        StringBuilder normalised = new StringBuilder(url.length());
+        normalised.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.US));
+        int port = uri.getPort();
+        if (port != -1 && !(scheme.equals("http") && port == 80) && !(scheme.equals("https") && port == 443))
+            normalised.append(':').append(port);
+        String path = uri.getRawPath();
+        normalised.append((path == null || path.length() == 0) ? "/" : path);
+        String query = uri.getRawQuery();
+        if (query != null && query.length() > 0) {
+            String[] parameters = query.split("&");
+            // Object sorts are stable, so repeated names stay in order
+            Arrays.sort(parameters, PARAMETER_NAME_ORDER);
+            normalised.append('?');
+            for (int i = 0; i < parameters.length; i++) {
+                if (i > 0)
+                    normalised.append('&');
+                normalised.append(parameters[i]);
+            }
+        }
+        return normalised.toString();
+    }
+
+    private static final Comparator<String> PARAMETER_NAME_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            return parameterName(a).compareTo(parameterName(b));
+        }
+    };
+
+    private static String parameterName(String parameter) {
+        int equals = parameter.indexOf('=');
+        return (equals == -1) ? parameter : parameter.substring(0, equals);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing more can be done with it
+        }
+    }
+
+    private static void drainAndClose(InputStream in) throws IOException {
+        try {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {
+                // Discard
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
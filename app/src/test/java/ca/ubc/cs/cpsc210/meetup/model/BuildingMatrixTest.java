@@ -0,0 +1,142 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class BuildingMatrixTest {
+
+    private static final double UBC_LAT = 49.2648;
+    private static final double UBC_LON = -123.2530;
+
+    // Enough buildings for the matrix to grow twice from its first 16
+    private static final int BUILDINGS = 50;
+
+    private Random random;
+    private BuildingMatrix matrix;
+    private List<LatLon> latLons;
+
+    @Before
+    public void setUp() {
+        random = new Random(210);
+        matrix = new BuildingMatrix();
+        latLons = new ArrayList<LatLon>();
+        for (int i = 0; i < BUILDINGS; i++) {
+            LatLon latLon = new LatLon(UBC_LAT + (random.nextDouble() - 0.5) * 0.018,
+                    UBC_LON + (random.nextDouble() - 0.5) * 0.028);
+            latLons.add(latLon);
+            assertEquals(i, matrix.add(latLon));
+        }
+    }
+
+    @Test
+    public void testDistancesOfEveryPair() {
+        assertEquals(BUILDINGS, matrix.size());
+        for (int a = 0; a < BUILDINGS; a++) {
+            assertEquals(0, matrix.getDistance(a, a), 0);
+            for (int b = 0; b < BUILDINGS; b++) {
+                double expected = LatLon.distanceBetweenTwoLatLon(latLons.get(a), latLons.get(b));
+                assertEquals(expected, matrix.getDistance(a, b), 0.01);
+                assertEquals(matrix.getDistance(a, b), matrix.getDistance(b, a), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testWalkingTimesStartUnknown() {
+        for (int a = 0; a < BUILDINGS; a++) {
+            assertEquals(0, matrix.getWalkingTime(a, a), 0);
+            for (int b = 0; b < a; b++)
+                assertEquals(BuildingMatrix.UNKNOWN, matrix.getWalkingTime(a, b), 0);
+        }
+    }
+
+    @Test
+    public void testEveryPairHasItsOwnSlot() {
+        // A different time for every pair, so two pairs sharing a slot would show
+        for (int a = 0; a < BUILDINGS; a++) {
+            for (int b = 0; b < a; b++)
+                matrix.setWalkingTime(b, a, a * BUILDINGS + b);
+        }
+        for (int a = 0; a < BUILDINGS; a++) {
+            for (int b = 0; b < a; b++) {
+                assertEquals(a * BUILDINGS + b, matrix.getWalkingTime(a, b), 0);
+                assertEquals(a * BUILDINGS + b, matrix.getWalkingTime(b, a), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testWalkingTimesSurviveGrowth() {
+        BuildingMatrix small = new BuildingMatrix();
+        for (int i = 0; i < 16; i++)
+            small.add(latLons.get(i));
+        small.setWalkingTime(15, 0, 600);
+        small.setWalkingTime(3, 7, 120);
+        for (int i = 16; i < BUILDINGS; i++)
+            small.add(latLons.get(i));
+        assertEquals(600, small.getWalkingTime(0, 15), 0);
+        assertEquals(120, small.getWalkingTime(7, 3), 0);
+        assertEquals(BuildingMatrix.UNKNOWN, small.getWalkingTime(16, 0), 0);
+        assertEquals(BuildingMatrix.UNKNOWN, small.getWalkingTime(BUILDINGS - 1, BUILDINGS - 2), 0);
+        assertEquals(LatLon.distanceBetweenTwoLatLon(latLons.get(0), latLons.get(15)), small.getDistance(0, 15), 0.01);
+    }
+
+    @Test
+    public void testSameBuildingIsAlwaysZero() {
+        matrix.setWalkingTime(4, 4, 300);
+        assertEquals(0, matrix.getWalkingTime(4, 4), 0);
+    }
+
+    @Test
+    public void testUnknownIds() {
+        int[][] pairs = { { -1, 0 }, { 0, -1 }, { BUILDINGS, 0 }, { 0, BUILDINGS } };
+        for (int[] pair : pairs) {
+            try {
+                matrix.getDistance(pair[0], pair[1]);
+                fail("Expected IndexOutOfBoundsException for " + pair[0] + ", " + pair[1]);
+            } catch (IndexOutOfBoundsException e) {
+                // Expected
+            }
+            try {
+                matrix.setWalkingTime(pair[0], pair[1], 60);
+                fail("Expected IndexOutOfBoundsException for " + pair[0] + ", " + pair[1]);
+            } catch (IndexOutOfBoundsException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testFactoryLooksUpItsOwnBuildings() {
+        BuildingFactory.reset();
+        BuildingFactory factory = BuildingFactory.getInstance();
+        Building icics = factory.getBuilding("ICICS", latLons.get(0));
+        Building dmp = factory.getBuilding("DMP", latLons.get(1));
+        assertSame(icics, factory.getBuilding("ICICS", latLons.get(2)));
+        assertEquals(0, icics.getId());
+        assertEquals(1, dmp.getId());
+
+        assertEquals(LatLon.distanceBetweenTwoLatLon(latLons.get(0), latLons.get(1)), factory.getDistance(icics, dmp), 0.01);
+        assertEquals(BuildingMatrix.UNKNOWN, factory.getWalkingTime(icics, dmp), 0);
+        factory.setWalkingTime(dmp, icics, 420);
+        assertEquals(420, factory.getWalkingTime(icics, dmp), 0);
+
+        // A building made outside the factory is measured directly and has no walking times
+        Building elsewhere = new Building("ICICS", latLons.get(3));
+        assertEquals(LatLon.distanceBetweenTwoLatLon(latLons.get(3), latLons.get(1)),
+                factory.getDistance(elsewhere, dmp), 1E-9);
+        factory.setWalkingTime(elsewhere, dmp, 60);
+        assertEquals(BuildingMatrix.UNKNOWN, factory.getWalkingTime(elsewhere, dmp), 0);
+        BuildingFactory.reset();
+    }
+}
@@ -0,0 +1,156 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalSectionInitialization;
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalStudentException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CourseFactoryTest {
+
+    private CourseFactory factory;
+    private Section cpsc210Section;
+
+    @Before
+    public void setUp() {
+        CourseFactory.reset();
+        factory = CourseFactory.getInstance();
+        Course cpsc210 = factory.getCourse("CPSC", 210);
+        cpsc210Section = new Section("101", "MWF", "9:00", "10:00", new Building("ICICS"));
+        cpsc210Section.setCourse(cpsc210);
+        cpsc210.addSection(cpsc210Section);
+    }
+
+    @After
+    public void tearDown() {
+        CourseFactory.reset();
+    }
+
+    @Test
+    public void testGetCourseGivesOneCourse() {
+        Course course = factory.getCourse("CPSC", 210);
+        assertSame(course, factory.getCourse("CPSC", 210));
+        assertSame(course, CourseFactory.getInstance().getCourse("CPSC", 210));
+        assertEquals("CPSC", course.getCode());
+        assertEquals(210, course.getNumber());
+        assertTrue(course != factory.getCourse("CPSC", 110));
+        assertTrue(course != factory.getCourse("MATH", 210));
+    }
+
+    @Test
+    public void testFindCourse() {
+        assertSame(factory.getCourse("CPSC", 210), factory.findCourse("CPSC", 210));
+        assertNull(factory.findCourse("CPSC", 110));
+        assertNull(factory.findCourse("MATH", 210));
+        // Looking does not create
+        assertNull(factory.findCourse("CPSC", 110));
+        assertNull(factory.findCourse("MATH", 210));
+    }
+
+    @Test
+    public void testGetSection() {
+        assertSame(cpsc210Section, factory.getSection("CPSC", 210, "101"));
+        assertNull(factory.getSection("CPSC", 210, "102"));
+        assertNull(factory.getSection("CPSC", 110, "101"));
+        assertNull(factory.getSection("MATH", 210, "101"));
+        assertNull(factory.findCourse("CPSC", 110));
+    }
+
+    @Test
+    public void testResetForgetsCourses() {
+        CourseFactory.reset();
+        assertNull(CourseFactory.getInstance().findCourse("CPSC", 210));
+    }
+
+    @Test
+    public void testConcurrentGetCourseGivesOneCourse() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Course>> results = new ArrayList<Future<Course>>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<Course>() {
+                @Override
+                public Course call() throws InterruptedException {
+                    start.await();
+                    return factory.getCourse("EECE", 310);
+                }
+            }));
+        }
+        start.countDown();
+        Course first = results.get(0).get();
+        for (Future<Course> result : results)
+            assertSame(first, result.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testAddSectionKeepsFirst() {
+        Course course = factory.findCourse("CPSC", 210);
+        Section other = new Section("101", "TR", "11:00", "12:30", new Building("DMP"));
+        course.addSection(other);
+        assertSame(cpsc210Section, course.getSection("101"));
+    }
+
+    @Test
+    public void testCourseEqualityIgnoresSections() {
+        Course a = new Course("CPSC", 210);
+        Course b = new Course("CPSC", 210);
+        b.addSection(cpsc210Section);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(new Course("CPSC", 110)));
+        assertFalse(a.equals(new Course("MATH", 210)));
+        assertFalse(a.equals(null));
+        assertFalse(a.equals("CPSC 210"));
+    }
+
+    @Test
+    public void testCourseHashIsStableAsSectionsAreAdded() {
+        Course course = new Course("CPSC", 210);
+        Set<Course> courses = new HashSet<Course>();
+        courses.add(course);
+        int hash = course.hashCode();
+        course.addSection(cpsc210Section);
+        course.addSection(new Section("102", "TR", "11:00", "12:30", new Building("DMP")));
+        assertEquals(hash, course.hashCode());
+        assertTrue(courses.contains(course));
+    }
+
+    @Test
+    public void testScheduleUnknownSection() {
+        StudentManager studentManager = new StudentManager();
+        studentManager.addStudent("Smith", "Alice", 1);
+        studentManager.addSectionToSchedule(1, "CPSC", 210, "101");
+        assertEquals(1, studentManager.get(1).getSchedule().getSections("MWF").size());
+        try {
+            studentManager.addSectionToSchedule(1, "CPSC", 210, "999");
+            fail("Expected IllegalSectionInitialization");
+        } catch (IllegalSectionInitialization e) {
+            // Expected
+        }
+        try {
+            studentManager.addSectionToSchedule(2, "CPSC", 210, "101");
+            fail("Expected IllegalStudentException");
+        } catch (IllegalStudentException e) {
+            // Expected
+        }
+    }
+}
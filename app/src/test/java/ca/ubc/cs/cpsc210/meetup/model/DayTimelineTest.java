@@ -0,0 +1,91 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DayTimelineTest {
+
+    private DayTimeline timeline;
+
+    @Before
+    public void setUp() {
+        timeline = new DayTimeline();
+    }
+
+    @Test
+    public void testEmptyDay() {
+        assertTrue(timeline.isEmpty());
+        assertTrue(timeline.isFreeFor(0, 24 * 60));
+        assertEquals(-1, timeline.nextBusySlot(0));
+        assertEquals(0, timeline.nextFreeSlot(0));
+        assertEquals(-1, timeline.previousBusySlot(DayTimeline.SLOTS_PER_DAY - 1));
+    }
+
+    @Test
+    public void testSectionMakesItsSlotsBusy() {
+        timeline.add(section("9:00", "9:50"));
+        assertFalse(timeline.isEmpty());
+        assertEquals(108, timeline.nextBusySlot(0));
+        assertEquals(118, timeline.nextFreeSlot(108));
+        assertEquals(117, timeline.previousBusySlot(200));
+        assertFalse(timeline.isFreeFor(9 * 60 + 30, 10));
+        assertTrue(timeline.isFreeFor(8 * 60, 60));
+        assertTrue(timeline.isFreeFor(9 * 60 + 50, 60));
+    }
+
+    @Test
+    public void testTimesRoundOutwards() {
+        timeline.add(section("9:02", "9:48"));
+        assertEquals(108, timeline.nextBusySlot(0));
+        assertEquals(118, timeline.nextFreeSlot(108));
+        assertFalse(timeline.isFreeFor(8 * 60 + 2, 60));
+    }
+
+    @Test
+    public void testSearchesCrossWords() {
+        // 5:15 to 5:25 is slots 63 to 65, across the first word boundary
+        timeline.add(section("5:15", "5:25"));
+        assertEquals(63, timeline.nextBusySlot(0));
+        assertEquals(64, timeline.nextBusySlot(64));
+        assertEquals(65, timeline.nextFreeSlot(63));
+        assertEquals(65, timeline.nextFreeSlot(64));
+        assertEquals(64, timeline.previousBusySlot(64));
+        assertEquals(64, timeline.previousBusySlot(100));
+        assertEquals(-1, timeline.previousBusySlot(62));
+        assertEquals(1L << 63, timeline.getWord(0));
+        assertEquals(1L, timeline.getWord(1));
+    }
+
+    @Test
+    public void testBusyToEndOfDay() {
+        timeline.add(section("22:00", "24:00"));
+        assertEquals(DayTimeline.SLOTS_PER_DAY, timeline.nextFreeSlot(22 * 12));
+        assertEquals(DayTimeline.SLOTS_PER_DAY - 1, timeline.previousBusySlot(DayTimeline.SLOTS_PER_DAY + 10));
+        assertFalse(timeline.isFreeFor(21 * 60, 120));
+        assertEquals(-1, timeline.nextBusySlot(DayTimeline.SLOTS_PER_DAY));
+    }
+
+    @Test
+    public void testTimePastMidnightIsFree() {
+        timeline.add(section("8:00", "9:00"));
+        assertTrue(timeline.isFreeFor(23 * 60 + 30, 60));
+        assertTrue(timeline.isFreeFor(24 * 60, 30));
+    }
+
+    @Test
+    public void testSlotRounding() {
+        assertEquals(0, DayTimeline.slotOf(-5));
+        assertEquals(1, DayTimeline.slotOf(9));
+        assertEquals(2, DayTimeline.slotCeiling(6));
+        assertEquals(2, DayTimeline.slotCeiling(10));
+        assertEquals(DayTimeline.SLOTS_PER_DAY, DayTimeline.slotCeiling(25 * 60));
+    }
+
+    private static Section section(String start, String end) {
+        return new Section("101", "MWF", start, end, new Building("ICICS"));
+    }
+}
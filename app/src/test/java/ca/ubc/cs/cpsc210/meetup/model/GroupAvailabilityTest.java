@@ -0,0 +1,164 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import ca.ubc.cs.cpsc210.meetup.util.CourseTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GroupAvailabilityTest {
+
+    private Course course;
+    private Student alice;
+    private Student bob;
+    private List<Student> group;
+
+    @Before
+    public void setUp() {
+        course = new Course("CPSC", 210);
+        alice = new Student("Smith", "Alice", 1);
+        bob = new Student("Jones", "Bob", 2);
+        group = Arrays.asList(alice, bob);
+    }
+
+    @Test
+    public void testEveryoneFree() throws Exception {
+        take(alice, "MWF", "9:00", "10:00");
+        take(bob, "MWF", "13:00", "14:00");
+        List<FreeWindow> windows = GroupAvailability.findFreeWindows(group, "MWF");
+        assertEquals(Arrays.asList(window("14:00", "24:00", 2), window("0:00", "9:00", 2),
+                window("10:00", "13:00", 2)), windows);
+    }
+
+    @Test
+    public void testOtherDayIsFree() throws Exception {
+        take(alice, "MWF", "9:00", "10:00");
+        assertEquals(Collections.singletonList(window("0:00", "24:00", 2)),
+                GroupAvailability.findFreeWindows(group, "TR"));
+    }
+
+    @Test
+    public void testSomeFree() throws Exception {
+        take(alice, "MWF", "9:00", "10:00");
+        take(bob, "MWF", "9:30", "11:00");
+        List<FreeWindow> windows = GroupAvailability.findFreeWindows(group, "MWF", 1);
+        assertEquals(Arrays.asList(window("10:00", "24:00", 1), window("0:00", "9:30", 1)), windows);
+    }
+
+    @Test
+    public void testShortGapIsNotAWindow() throws Exception {
+        take(alice, "MWF", "9:00", "10:00");
+        take(bob, "MWF", "10:30", "11:00");
+        List<FreeWindow> windows = GroupAvailability.findFreeWindows(group, "MWF");
+        assertEquals(Arrays.asList(window("11:00", "24:00", 2), window("0:00", "9:00", 2)), windows);
+    }
+
+    @Test
+    public void testBetweenLimits() throws Exception {
+        take(alice, "TR", "9:00", "10:00");
+        List<FreeWindow> windows = GroupAvailability.findFreeWindows(group, "TR", 2, 8 * 60, 12 * 60);
+        assertEquals(Arrays.asList(window("10:00", "12:00", 2), window("8:00", "9:00", 2)), windows);
+    }
+
+    @Test
+    public void testAgainstEverySlot() throws Exception {
+        Random random = new Random(210);
+        for (int trial = 0; trial < 50; trial++) {
+            List<Student> students = new ArrayList<Student>();
+            int numberOfStudents = 1 + random.nextInt(6);
+            for (int i = 0; i < numberOfStudents; i++) {
+                Student student = new Student("S" + i, "S" + i, i);
+                // Sections on ten-minute boundaries, so no times are rounded
+                int minute = 7 * 60 + 10 * random.nextInt(12);
+                while (minute < 20 * 60) {
+                    int end = minute + 10 * (3 + random.nextInt(15));
+                    take(student, "MWF", CourseTime.formatMinuteOfDay(minute), CourseTime.formatMinuteOfDay(end));
+                    minute = end + 10 * random.nextInt(12);
+                }
+                students.add(student);
+            }
+            int minimumFree = 1 + random.nextInt(students.size());
+            assertEquals(everySlot(students, minimumFree),
+                    GroupAvailability.findFreeWindows(students, "MWF", minimumFree));
+        }
+    }
+
+    @Test
+    public void testEmptyGroup() {
+        assertTrue(GroupAvailability.findFreeWindows(new ArrayList<Student>(), "MWF").isEmpty());
+        try {
+            GroupAvailability.findFreeWindows(new ArrayList<Student>(), "MWF", 1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testMinimumFreeOutOfRange() {
+        for (int minimumFree : new int[] { 0, -1, 3 }) {
+            try {
+                GroupAvailability.findFreeWindows(group, "MWF", minimumFree);
+                fail("Expected IllegalArgumentException for " + minimumFree);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    /*
+     * The windows found by checking each slot of each student in turn
+     */
+    private static List<FreeWindow> everySlot(List<Student> students, int minimumFree) {
+        List<FreeWindow> windows = new ArrayList<FreeWindow>();
+        int runStart = -1;
+        int fewest = 0;
+        for (int slot = 0; slot <= DayTimeline.SLOTS_PER_DAY; slot++) {
+            int free = -1;
+            if (slot < DayTimeline.SLOTS_PER_DAY) {
+                free = 0;
+                for (Student student : students) {
+                    DayTimeline timeline = student.getSchedule().getTimelineForDayOfWeek("MWF");
+                    if (timeline.isFreeFor(slot * DayTimeline.MINUTES_PER_SLOT, DayTimeline.MINUTES_PER_SLOT))
+                        free++;
+                }
+            }
+            if (free >= minimumFree) {
+                fewest = (runStart < 0) ? free : Math.min(fewest, free);
+                if (runStart < 0)
+                    runStart = slot;
+            } else if (runStart >= 0) {
+                if ((slot - runStart) * DayTimeline.MINUTES_PER_SLOT >= Schedule.BREAK_LENGTH_IN_MINUTES)
+                    windows.add(new FreeWindow(runStart * DayTimeline.MINUTES_PER_SLOT,
+                            slot * DayTimeline.MINUTES_PER_SLOT, fewest));
+                runStart = -1;
+            }
+        }
+        Collections.sort(windows);
+        return windows;
+    }
+
+    private void take(Student student, String day, String start, String end) throws Exception {
+        Section section = new Section(start, day, start, end, new Building("ICICS"));
+        section.setCourse(course);
+        student.getSchedule().add(section);
+    }
+
+    private static FreeWindow window(String start, String end, int numberFree) {
+        return new FreeWindow(minute(start), minute(end), numberFree);
+    }
+
+    private static int minute(String time) {
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+    }
+}
@@ -0,0 +1,64 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PlaceColumnsTest {
+
+    private Random random;
+    private PlaceColumns columns;
+
+    @Before
+    public void setUp() {
+        random = new Random(210);
+        columns = new PlaceColumns();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, columns.size());
+    }
+
+    @Test
+    public void testColumnsMatchPlacesAsTheyGrow() {
+        List<Place> places = new ArrayList<Place>();
+        List<Integer> categories = new ArrayList<Integer>();
+        // Enough places to grow from the first 4 several times
+        for (int i = 0; i < 100; i++) {
+            Place place = new Place("P" + i, new LatLon((random.nextDouble() - 0.5) * 180,
+                    (random.nextDouble() - 0.5) * 360), "C" + (i % 7), Place.UNKNOWN_PRICE);
+            places.add(place);
+            categories.add(i % 7);
+            columns.add(place, i % 7);
+
+            assertEquals(places.size(), columns.size());
+            for (int p = 0; p < places.size(); p++) {
+                // Exactly the coordinates the place itself reports, so searches agree with LatLon
+                assertEquals(places.get(p).getLatLon().getLatitude(), columns.getLatitude(p), 0);
+                assertEquals(places.get(p).getLatLon().getLongitude(), columns.getLongitude(p), 0);
+                assertEquals((int) categories.get(p), columns.getCategory(p));
+                assertSame(places.get(p), columns.getPlace(p));
+            }
+        }
+    }
+
+    @Test
+    public void testSamePlaceTwice() {
+        Place place = new Place("Twice", new LatLon(49.2648, -123.2530), null, 1);
+        columns.add(place, 0);
+        columns.add(place, 3);
+        assertEquals(2, columns.size());
+        assertSame(columns.getPlace(0), columns.getPlace(1));
+        assertEquals(0, columns.getCategory(0));
+        assertEquals(3, columns.getCategory(1));
+    }
+}
@@ -0,0 +1,115 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlaceFactoryTest {
+
+    private static final LatLon UBC = new LatLon(49.2648, -123.2530);
+    private static final String[] CATEGORIES = { "Sushi", "Pizza", "Cafe" };
+
+    private PlaceFactory factory;
+    private List<Place> places;
+
+    @Before
+    public void setUp() {
+        TagDictionary.reset();
+        factory = new PlaceFactory();
+        places = new ArrayList<Place>();
+        Random random = new Random(210);
+        for (int i = 0; i < 300; i++) {
+            LatLon latLon = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.02,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.03);
+            // One place in five has no known price
+            int price = (i % 5 == 0) ? Place.UNKNOWN_PRICE : random.nextInt(4);
+            Place place = new Place("P" + i, latLon, CATEGORIES[random.nextInt(CATEGORIES.length)], price);
+            places.add(place);
+            factory.add(place);
+        }
+    }
+
+    @Test
+    public void testPriceLimitWithCategory() {
+        for (String category : new String[] { "Sushi", "Pizza", null }) {
+            for (int maxPrice = 0; maxPrice <= 4; maxPrice++) {
+                Set<Place> expected = new HashSet<Place>();
+                for (Place place : places) {
+                    if ((category == null || category.equals(place.getCategory()))
+                            && place.getPrice() != Place.UNKNOWN_PRICE && place.getPrice() <= maxPrice
+                            && LatLon.distanceBetweenTwoLatLon(UBC, place.getLatLon()) <= 600)
+                        expected.add(place);
+                }
+                assertEquals(expected, factory.findPlacesWithinDistance(UBC, 600, category, maxPrice));
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownPriceLeftOutOfPriceLimit() {
+        for (Place place : factory.findPlacesWithinDistance(UBC, 5000, null, 10))
+            assertTrue(place.getPrice() != Place.UNKNOWN_PRICE);
+        assertEquals(places.size(), factory.findPlacesWithinDistance(UBC, 5000).size());
+    }
+
+    @Test
+    public void testUnknownCategoryFindsNothing() {
+        assertTrue(factory.findPlacesWithinDistance(UBC, 5000, "Tacos", 3).isEmpty());
+        assertTrue(factory.findPlacesWithinDistanceWithFood(UBC, 5000, "Tacos").isEmpty());
+    }
+
+    @Test
+    public void testWithinDistanceOfTwo() {
+        Random random = new Random(210);
+        for (int q = 0; q < 100; q++) {
+            LatLon me = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.02,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.03);
+            LatLon you = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.02,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.03);
+            int distance = 200 + random.nextInt(1000);
+            String category = (q % 4 == 3) ? null : CATEGORIES[q % 4];
+
+            Set<Place> expected = new HashSet<Place>();
+            for (Place place : places) {
+                if ((category == null || category.equals(place.getCategory()))
+                        && LatLon.distanceBetweenTwoLatLon(me, place.getLatLon()) <= distance
+                        && LatLon.distanceBetweenTwoLatLon(you, place.getLatLon()) <= distance)
+                    expected.add(place);
+            }
+            assertEquals(expected, factory.findPlacesWithinDistanceOfAll(Arrays.asList(me, you), distance, category));
+        }
+    }
+
+    @Test
+    public void testWithinDistanceOfOneIsWithinDistance() {
+        List<LatLon> justMe = Collections.singletonList(UBC);
+        assertEquals(factory.findPlacesWithinDistance(UBC, 700),
+                factory.findPlacesWithinDistanceOfAll(justMe, 700, null));
+        assertEquals(factory.findPlacesWithinDistanceWithFood(UBC, 700, "Cafe"),
+                factory.findPlacesWithinDistanceOfAll(justMe, 700, "Cafe"));
+    }
+
+    @Test
+    public void testWithinDistanceOfAllTooFarApart() {
+        LatLon farAway = new LatLon(UBC.getLatitude(), UBC.getLongitude() + 0.05);
+        assertTrue(factory.findPlacesWithinDistanceOfAll(Arrays.asList(UBC, farAway), 500, null).isEmpty());
+        assertTrue(factory.findPlacesWithinDistanceOfAll(Arrays.asList(UBC, UBC), 5000, "Tacos").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePriceRejected() {
+        new Place("Bad", UBC, "Sushi", -2);
+    }
+}
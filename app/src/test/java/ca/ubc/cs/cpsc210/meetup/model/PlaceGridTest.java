@@ -0,0 +1,264 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Check every kind of grid query against a brute-force scan of the same places
+ */
+public class PlaceGridTest {
+
+    private static final double UBC_LAT = 49.2648;
+    private static final double UBC_LON = -123.2530;
+    private static final String[] CATEGORIES = { "food", "coffee", "bar" };
+    private static final String[] TAGS = { "wifi", "outdoor", "vegan" };
+    private static final int QUERIES = 200;
+
+    private Random random;
+    private List<Place> places;
+    private PlaceGrid grid;
+
+    @Before
+    public void setUp() {
+        TagDictionary.reset();
+        random = new Random(210);
+        places = new ArrayList<Place>();
+        grid = new PlaceGrid();
+        for (int i = 0; i < 500; i++) {
+            Place place = new Place("P" + i, randomPoint(), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    random.nextInt(4));
+            for (String tag : TAGS) {
+                if (random.nextBoolean())
+                    place.addTag(tag);
+            }
+            places.add(place);
+            grid.add(place);
+        }
+    }
+
+    @Test
+    public void testFindWithinDistance() {
+        for (int q = 0; q < QUERIES; q++) {
+            LatLon origin = randomPoint();
+            double distance = 50 + random.nextDouble() * 800;
+            String category = randomCategory();
+            long tags = random.nextBoolean() ? TagDictionary.getInstance().findMask(TAGS[random.nextInt(TAGS.length)]) : 0;
+
+            Set<Place> expected = new HashSet<Place>();
+            for (Place place : places) {
+                if (matches(place, category) && place.containsTags(tags)
+                        && LatLon.distanceBetweenTwoLatLon(origin, place.getLatLon()) <= distance)
+                    expected.add(place);
+            }
+            List<Place> found = new ArrayList<Place>();
+            grid.findWithinDistance(origin, distance, category, tags, found);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<Place>(found));
+        }
+    }
+
+    @Test
+    public void testFindWithinDistanceOfAll() {
+        for (int q = 0; q < QUERIES; q++) {
+            List<LatLon> origins = Arrays.asList(randomPoint(), randomPoint(), randomPoint());
+            double distance = 300 + random.nextDouble() * 1200;
+            String category = randomCategory();
+
+            Set<Place> expected = new HashSet<Place>();
+            for (Place place : places) {
+                boolean closeToAll = matches(place, category);
+                for (LatLon origin : origins)
+                    closeToAll &= LatLon.distanceBetweenTwoLatLon(origin, place.getLatLon()) <= distance;
+                if (closeToAll)
+                    expected.add(place);
+            }
+            List<Place> found = new ArrayList<Place>();
+            grid.findWithinDistanceOfAll(origins, distance, category, found);
+            assertEquals(expected, new HashSet<Place>(found));
+        }
+    }
+
+    @Test
+    public void testFindNearest() {
+        for (int q = 0; q < QUERIES; q++) {
+            LatLon origin = randomPoint();
+            int k = 1 + random.nextInt(10);
+            String category = randomCategory();
+
+            List<Double> expected = new ArrayList<Double>();
+            for (Place place : places) {
+                if (matches(place, category))
+                    expected.add(LatLon.distanceBetweenTwoLatLon(origin, place.getLatLon()));
+            }
+            Collections.sort(expected);
+            List<Place> found = grid.findNearest(origin, k, category);
+            assertEquals(Math.min(k, expected.size()), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertTrue(matches(found.get(i), category));
+                assertEquals(expected.get(i), LatLon.distanceBetweenTwoLatLon(origin, found.get(i).getLatLon()), 1E-6);
+            }
+        }
+    }
+
+    @Test
+    public void testFindNearestNoneWanted() {
+        LatLon origin = new LatLon(UBC_LAT, UBC_LON);
+        assertTrue(grid.findNearest(origin, 0, null).isEmpty());
+        assertTrue(grid.findNearest(origin, -1, "food").isEmpty());
+        assertTrue(new PlaceGrid().findNearest(origin, 0, null).isEmpty());
+    }
+
+    @Test
+    public void testFindNearestMoreThanThereAre() {
+        LatLon origin = new LatLon(UBC_LAT, UBC_LON);
+        List<Place> found = grid.findNearest(origin, places.size() + 10, null);
+        assertEquals(places.size(), found.size());
+        assertEquals(new HashSet<Place>(places), new HashSet<Place>(found));
+        for (int i = 1; i < found.size(); i++)
+            assertTrue(LatLon.distanceBetweenTwoLatLon(origin, found.get(i - 1).getLatLon())
+                    <= LatLon.distanceBetweenTwoLatLon(origin, found.get(i).getLatLon()));
+    }
+
+    @Test
+    public void testFindNearestFarOutside() {
+        // Far enough away that the search has to reach past many empty rings
+        LatLon origin = new LatLon(UBC_LAT + 0.2, UBC_LON - 0.3);
+        List<Double> expected = new ArrayList<Double>();
+        for (Place place : places)
+            expected.add(LatLon.distanceBetweenTwoLatLon(origin, place.getLatLon()));
+        Collections.sort(expected);
+        List<Place> found = grid.findNearest(origin, 5, null);
+        assertEquals(5, found.size());
+        for (int i = 0; i < found.size(); i++)
+            assertEquals(expected.get(i), LatLon.distanceBetweenTwoLatLon(origin, found.get(i).getLatLon()), 1E-6);
+    }
+
+    @Test
+    public void testFindNearestEmptyGrid() {
+        assertTrue(new PlaceGrid().findNearest(new LatLon(UBC_LAT, UBC_LON), 3, null).isEmpty());
+    }
+
+    @Test
+    public void testFindBestForGroup() {
+        for (GroupObjective objective : GroupObjective.values()) {
+            for (int q = 0; q < QUERIES / 2; q++) {
+                List<LatLon> origins = Arrays.asList(randomPoint(), randomPoint(), randomPoint(), randomPoint());
+                int k = 1 + random.nextInt(5);
+                String category = randomCategory();
+
+                List<Double> expected = new ArrayList<Double>();
+                for (Place place : places) {
+                    if (matches(place, category))
+                        expected.add(score(objective, origins, place));
+                }
+                Collections.sort(expected);
+                List<PlaceDistance> found = grid.findBestForGroup(origins, k, objective, category);
+                assertEquals(Math.min(k, expected.size()), found.size());
+                for (int i = 0; i < found.size(); i++) {
+                    assertEquals(expected.get(i), found.get(i).getDistance(), 1E-6);
+                    assertEquals(found.get(i).getDistance(), score(objective, origins, found.get(i).getPlace()), 1E-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindBestForGroupAcrossManyBlocks() {
+        // Small cells over a wide area, straddling the equator and the prime meridian,
+        // so places are spread thinly over many blocks with negative rows and columns
+        PlaceGrid fine = new PlaceGrid(0.0005);
+        List<Place> spread = new ArrayList<Place>();
+        for (int i = 0; i < 400; i++) {
+            Place place = new Place("S" + i, new LatLon((random.nextDouble() - 0.5) * 2, (random.nextDouble() - 0.5) * 2),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], Place.UNKNOWN_PRICE);
+            spread.add(place);
+            fine.add(place);
+        }
+        for (GroupObjective objective : GroupObjective.values()) {
+            for (int q = 0; q < QUERIES / 4; q++) {
+                List<LatLon> origins = new ArrayList<LatLon>();
+                for (int i = 1 + random.nextInt(4); i > 0; i--)
+                    origins.add(new LatLon((random.nextDouble() - 0.5) * 2.5, (random.nextDouble() - 0.5) * 2.5));
+                int k = 1 + random.nextInt(8);
+
+                List<Double> expected = new ArrayList<Double>();
+                for (Place place : spread)
+                    expected.add(score(objective, origins, place));
+                Collections.sort(expected);
+                List<PlaceDistance> found = fine.findBestForGroup(origins, k, objective, null);
+                assertEquals(k, found.size());
+                for (int i = 0; i < found.size(); i++)
+                    assertEquals(expected.get(i), found.get(i).getDistance(), 1E-6);
+            }
+        }
+    }
+
+    @Test
+    public void testFindBestForGroupOfOneIsNearest() {
+        for (int q = 0; q < QUERIES / 4; q++) {
+            LatLon origin = randomPoint();
+            List<Place> nearest = grid.findNearest(origin, 5, null);
+            for (GroupObjective objective : GroupObjective.values()) {
+                List<PlaceDistance> found = grid.findBestForGroup(Collections.singletonList(origin), 5, objective, null);
+                assertEquals(nearest.size(), found.size());
+                for (int i = 0; i < found.size(); i++)
+                    assertEquals(LatLon.distanceBetweenTwoLatLon(origin, nearest.get(i).getLatLon()),
+                            found.get(i).getDistance(), 1E-6);
+            }
+        }
+    }
+
+    @Test
+    public void testFindBestForGroupNoneWanted() {
+        List<LatLon> origins = Arrays.asList(randomPoint(), randomPoint());
+        assertTrue(grid.findBestForGroup(origins, 0, GroupObjective.MAX_DISTANCE, null).isEmpty());
+        assertTrue(grid.findBestForGroup(origins, -2, GroupObjective.SUM_DISTANCE, "food").isEmpty());
+        assertTrue(new PlaceGrid().findBestForGroup(origins, 3, GroupObjective.SUM_DISTANCE, null).isEmpty());
+        assertTrue(grid.findBestForGroup(origins, 3, GroupObjective.SUM_DISTANCE, "museum").isEmpty());
+    }
+
+    @Test
+    public void testUnknownCategoryFindsNothing() {
+        List<Place> found = new ArrayList<Place>();
+        grid.findWithinDistance(new LatLon(UBC_LAT, UBC_LON), 5000, "museum", found);
+        assertTrue(found.isEmpty());
+        assertTrue(grid.findNearest(new LatLon(UBC_LAT, UBC_LON), 3, "museum").isEmpty());
+    }
+
+    private static double score(GroupObjective objective, List<LatLon> origins, Place place) {
+        double score = 0;
+        for (LatLon origin : origins) {
+            double distance = LatLon.distanceBetweenTwoLatLon(origin, place.getLatLon());
+            score = (objective == GroupObjective.MAX_DISTANCE) ? Math.max(score, distance) : score + distance;
+        }
+        return score;
+    }
+
+    private static boolean matches(Place place, String category) {
+        return category == null || category.equals(place.getCategory());
+    }
+
+    // A point within about a kilometre of the middle of campus
+    private LatLon randomPoint() {
+        return new LatLon(UBC_LAT + (random.nextDouble() - 0.5) * 0.018, UBC_LON + (random.nextDouble() - 0.5) * 0.028);
+    }
+
+    // One of the categories, or null for any
+    private String randomCategory() {
+        int i = random.nextInt(CATEGORIES.length + 1);
+        return (i == CATEGORIES.length) ? null : CATEGORIES[i];
+    }
+}
@@ -0,0 +1,104 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.ubc.cs.cpsc210.meetup.exceptions.IllegalCourseTimeException;
+import ca.ubc.cs.cpsc210.meetup.util.CourseTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SectionIntervalIndexTest {
+
+    private SectionIntervalIndex index;
+    private Section early;
+    private Section middle;
+    private Section late;
+
+    @Before
+    public void setUp() {
+        index = new SectionIntervalIndex();
+        early = section("201", "8:00", "9:00");
+        middle = section("202", "10:00", "11:30");
+        late = section("203", "14:00", "15:00");
+        // Out of order, to check that they are kept sorted
+        index.add(late);
+        index.add(early);
+        index.add(middle);
+    }
+
+    @Test
+    public void testKeptInStartOrder() {
+        assertEquals(3, index.size());
+        assertSame(early, index.get(0));
+        assertSame(middle, index.get(1));
+        assertSame(late, index.get(2));
+        assertEquals(10 * 60, index.getStartMinute(1));
+        assertEquals(11 * 60 + 30, index.getEndMinute(1));
+    }
+
+    @Test
+    public void testFindOverlapping() {
+        assertSame(middle, index.findOverlapping(9 * 60 + 30, 10 * 60 + 1));
+        assertSame(middle, index.findOverlapping(11 * 60, 12 * 60));
+        assertSame(late, index.findOverlapping(12 * 60, 16 * 60));
+        // Touching ends do not overlap
+        assertNull(index.findOverlapping(9 * 60, 10 * 60));
+        assertNull(index.findOverlapping(11 * 60 + 30, 14 * 60));
+        assertNull(index.findOverlapping(0, 8 * 60));
+    }
+
+    @Test
+    public void testSectionCovering() {
+        assertSame(early, index.sectionCovering(8 * 60));
+        assertSame(early, index.sectionCovering(8 * 60 + 59));
+        assertNull(index.sectionCovering(9 * 60));
+        assertSame(late, index.sectionCovering(14 * 60 + 30));
+        assertNull(index.sectionCovering(7 * 60));
+    }
+
+    @Test
+    public void testNeighbours() {
+        assertNull(index.lastSectionEndingBefore(8 * 60 + 59));
+        assertSame(early, index.lastSectionEndingBefore(9 * 60));
+        assertSame(middle, index.lastSectionEndingBefore(13 * 60));
+        assertSame(late, index.lastSectionEndingBefore(24 * 60));
+        assertSame(early, index.nextSectionStartingAfter(0));
+        assertSame(middle, index.nextSectionStartingAfter(8 * 60));
+        assertSame(late, index.nextSectionStartingAfter(10 * 60));
+        assertNull(index.nextSectionStartingAfter(14 * 60));
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() throws IllegalCourseTimeException {
+        SectionIntervalIndex big = new SectionIntervalIndex();
+        // Ten-minute sections from 6:00 on, added from last to first
+        for (int i = 59; i >= 0; i--)
+            big.add(section("S" + i, 360 + 10 * i, 370 + 10 * i));
+        assertEquals(60, big.size());
+        for (int i = 0; i < 60; i++) {
+            assertEquals("S" + i, big.get(i).getName());
+            assertSame(big.get(i), big.sectionCovering(365 + 10 * i));
+        }
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        SectionIntervalIndex empty = new SectionIntervalIndex();
+        assertEquals(0, empty.size());
+        assertNull(empty.findOverlapping(0, 24 * 60));
+        assertNull(empty.sectionCovering(12 * 60));
+        assertNull(empty.lastSectionEndingBefore(24 * 60));
+        assertNull(empty.nextSectionStartingAfter(0));
+    }
+
+    private static Section section(String name, String start, String end) {
+        return new Section(name, "MWF", start, end, new Building("ICICS"));
+    }
+
+    private static Section section(String name, int start, int end) throws IllegalCourseTimeException {
+        return new Section(name, "MWF", new CourseTime(start, end), new Building("ICICS"));
+    }
+}
@@ -0,0 +1,140 @@
+package ca.ubc.cs.cpsc210.meetup.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import ca.ubc.cs.cpsc210.meetup.util.LatLon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TagDictionaryTest {
+
+    private static final LatLon UBC = new LatLon(49.2648, -123.2530);
+
+    private TagDictionary dictionary;
+
+    @Before
+    public void setUp() {
+        TagDictionary.reset();
+        dictionary = TagDictionary.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        TagDictionary.reset();
+    }
+
+    @Test
+    public void testTagsGetBitsInOrder() {
+        assertEquals(1L, dictionary.getMask("wifi"));
+        assertEquals(2L, dictionary.getMask("quiet"));
+        assertEquals(1L, dictionary.getMask("wifi"));
+        assertEquals(2, dictionary.size());
+        assertEquals(2L, dictionary.findMask("quiet"));
+        assertEquals(0L, dictionary.findMask("vegan"));
+        // Looking a tag up does not give it a bit
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testGetTags() {
+        dictionary.getMask("wifi");
+        dictionary.getMask("quiet");
+        dictionary.getMask("vegan");
+        assertEquals(Arrays.asList("wifi", "vegan"), dictionary.getTags(5L));
+        assertEquals(Collections.<String>emptyList(), dictionary.getTags(0L));
+        // Bits no tag has are ignored
+        assertEquals(Arrays.asList("quiet"), dictionary.getTags(2L | (1L << 40)));
+    }
+
+    @Test
+    public void testAllSixtyFourBits() {
+        for (int i = 0; i < TagDictionary.MAX_TAGS; i++)
+            assertEquals(1L << i, dictionary.getMask("tag" + i));
+        assertEquals(Long.MIN_VALUE, dictionary.findMask("tag63"));
+        assertEquals(TagDictionary.MAX_TAGS, dictionary.getTags(-1L).size());
+        assertEquals(Long.MIN_VALUE, dictionary.getMask("tag63"));
+        try {
+            dictionary.getMask("one too many");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertEquals(0L, dictionary.findMask("one too many"));
+    }
+
+    @Test
+    public void testPlaceTags() {
+        Place place = new Place("Koerner's Pub", UBC, "Pub", 2);
+        place.addTag("wifi");
+        place.addTag("outdoor");
+        place.addTag("wifi");
+        assertTrue(place.containsTag("wifi"));
+        assertTrue(place.containsTag("outdoor"));
+        assertFalse(place.containsTag("quiet"));
+        assertFalse(place.containsTag("never seen"));
+        assertEquals(Arrays.asList("wifi", "outdoor"), place.getTags());
+
+        long wifi = dictionary.findMask("wifi");
+        long outdoor = dictionary.findMask("outdoor");
+        long quiet = dictionary.getMask("quiet");
+        assertTrue(place.containsTags(0));
+        assertTrue(place.containsTags(wifi | outdoor));
+        assertFalse(place.containsTags(wifi | quiet));
+    }
+
+    @Test
+    public void testFindPlacesWithTags() {
+        PlaceFactory factory = new PlaceFactory();
+        String[] tags = { "wifi", "quiet", "vegan", "outdoor" };
+        List<Place> places = new ArrayList<Place>();
+        Random random = new Random(210);
+        for (int i = 0; i < 200; i++) {
+            LatLon latLon = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.02,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.03);
+            Place place = new Place("P" + i, latLon, (i % 2 == 0) ? "Cafe" : "Pizza", random.nextInt(3));
+            for (String tag : tags) {
+                if (random.nextBoolean())
+                    place.addTag(tag);
+            }
+            places.add(place);
+            factory.add(place);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            List<String> wanted = new ArrayList<String>();
+            for (String tag : tags) {
+                if (random.nextInt(3) == 0)
+                    wanted.add(tag);
+            }
+            String category = (q % 3 == 0) ? null : (q % 3 == 1) ? "Cafe" : "Pizza";
+            Set<Place> expected = new HashSet<Place>();
+            for (Place place : places) {
+                boolean hasAll = category == null || category.equals(place.getCategory());
+                for (String tag : wanted)
+                    hasAll &= place.containsTag(tag);
+                if (hasAll && LatLon.distanceBetweenTwoLatLon(UBC, place.getLatLon()) <= 800)
+                    expected.add(place);
+            }
+            assertEquals(expected, factory.findPlacesWithinDistanceWithTags(UBC, 800, category, wanted));
+        }
+
+        // A tag added after the place was indexed is still found
+        places.get(0).addTag("late");
+        Set<Place> late = factory.findPlacesWithinDistanceWithTags(UBC, 5000, Arrays.asList("late"));
+        assertEquals(Collections.singleton(places.get(0)), late);
+        assertTrue(factory.findPlacesWithinDistanceWithTags(UBC, 5000, Arrays.asList("wifi", "never seen")).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CampusDistanceTest {
+
+    private static final LatLon UBC = new LatLon(49.2648, -123.2530);
+
+    @Test
+    public void testAgreesWithExactDistanceOnCampus() {
+        Random random = new Random(210);
+        for (int i = 0; i < 20000; i++) {
+            double distance = 10 + random.nextDouble() * 2000;
+            CampusDistance within = new CampusDistance(UBC, distance);
+            LatLon point = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.06,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.09);
+            assertEquals(LatLon.distanceBetweenTwoLatLon(UBC, point) <= distance, within.isWithin(point));
+        }
+    }
+
+    @Test
+    public void testAgreesJustInsideAndOutside() {
+        // Points due east and due north of the origin, a hair either side of the distance
+        double distance = 500;
+        CampusDistance within = new CampusDistance(UBC, distance);
+        double metresPerDegreeLat = Math.toRadians(GeoBox.EARTH_RADIUS);
+        double metresPerDegreeLon = metresPerDegreeLat * Math.cos(Math.toRadians(UBC.getLatitude()));
+        for (double offset = -0.05; offset <= 0.05; offset += 0.01) {
+            LatLon north = new LatLon(UBC.getLatitude() + (distance + offset) / metresPerDegreeLat, UBC.getLongitude());
+            LatLon east = new LatLon(UBC.getLatitude(), UBC.getLongitude() + (distance + offset) / metresPerDegreeLon);
+            assertEquals(LatLon.distanceBetweenTwoLatLon(UBC, north) <= distance, within.isWithin(north));
+            assertEquals(LatLon.distanceBetweenTwoLatLon(UBC, east) <= distance, within.isWithin(east));
+        }
+    }
+
+    @Test
+    public void testEstimateWithinErrorBound() {
+        Random random = new Random(210);
+        double distance = 1500;
+        CampusDistance within = new CampusDistance(UBC, distance);
+        double error = CampusDistance.relativeError(UBC.getLatitude(), distance);
+        for (int i = 0; i < 5000; i++) {
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double metres = random.nextDouble() * distance;
+            LatLon point = new LatLon(
+                    UBC.getLatitude() + Math.toDegrees(metres * Math.cos(bearing) / GeoBox.EARTH_RADIUS),
+                    UBC.getLongitude() + Math.toDegrees(metres * Math.sin(bearing) / GeoBox.EARTH_RADIUS)
+                            / Math.cos(Math.toRadians(UBC.getLatitude())));
+            double exact = LatLon.distanceBetweenTwoLatLon(UBC, point);
+            assertEquals(exact, within.estimate(point), exact * error + 1E-6);
+        }
+    }
+
+    @Test
+    public void testAcrossTheAntimeridian() {
+        LatLon west = new LatLon(10, 179.999);
+        LatLon east = new LatLon(10, -179.999);
+        CampusDistance within = new CampusDistance(west, 500);
+        assertTrue(within.isWithin(east));
+        assertEquals(LatLon.distanceBetweenTwoLatLon(west, east), within.estimate(east), 1);
+    }
+
+    @Test
+    public void testFarFromTheEquatorUsesExactDistance() {
+        LatLon origin = new LatLon(85, 0);
+        Random random = new Random(210);
+        for (int i = 0; i < 2000; i++) {
+            double distance = 100 + random.nextDouble() * 5000;
+            CampusDistance within = new CampusDistance(origin, distance);
+            LatLon point = new LatLon(85 + (random.nextDouble() - 0.5) * 0.1, (random.nextDouble() - 0.5) * 1.2);
+            assertEquals(LatLon.distanceBetweenTwoLatLon(origin, point) <= distance, within.isWithin(point));
+        }
+    }
+
+    @Test
+    public void testRawCoordinatesAgreeWithLatLon() {
+        Random random = new Random(210);
+        for (int i = 0; i < 5000; i++) {
+            double distance = 10 + random.nextDouble() * 2000;
+            CampusDistance within = new CampusDistance(UBC, distance);
+            LatLon point = new LatLon(UBC.getLatitude() + (random.nextDouble() - 0.5) * 0.06,
+                    UBC.getLongitude() + (random.nextDouble() - 0.5) * 0.09);
+            assertEquals(within.isWithin(point), within.isWithin(point.getLatitude(), point.getLongitude()));
+            assertEquals(LatLon.distanceBetweenTwoLatLon(UBC, point), LatLon.distanceBetween(UBC.getLatitude(),
+                    UBC.getLongitude(), point.getLatitude(), point.getLongitude()), 0);
+        }
+    }
+
+    @Test
+    public void testZeroDistance() {
+        CampusDistance within = new CampusDistance(UBC, 0);
+        assertTrue(within.isWithin(UBC));
+        assertFalse(within.isWithin(new LatLon(UBC.getLatitude() + 0.00001, UBC.getLongitude())));
+    }
+}
@@ -0,0 +1,136 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CampusRouterTest {
+
+    // A square a-b-c-d with a long way round through e
+    private static final String SQUARE =
+            "node|a|49.260000|-123.250000\n"
+            + "node|b|49.261000|-123.250000\n"
+            + "node|c|49.261000|-123.251500\n"
+            + "node|d|49.260000|-123.251500\n"
+            + "node|e|49.258000|-123.249000\n"
+            + "node|island|49.263000|-123.249000\n"
+            + "way|a|b|c|d\n"
+            + "way|a|e|d\n";
+
+    @Test
+    public void testShortestWayRound() throws IOException {
+        WalkwayGraph graph = WalkwayGraph.load(new StringReader(SQUARE));
+        CampusRouter router = new CampusRouter(graph);
+        Route route = router.findRoute(new LatLon(49.26, -123.25), new LatLon(49.26, -123.2515));
+        assertNotNull(route);
+        // a-b-c-d is shorter than a-e-d
+        assertEquals(4, route.getNumberOfPoints());
+        assertEquals(49261000, route.getLatitudeE6(1));
+        double length = graph.distance(0, 1) + graph.distance(1, 2) + graph.distance(2, 3);
+        assertEquals(length / CampusRouter.WALKING_SPEED, route.getTime(), 0.01);
+    }
+
+    @Test
+    public void testSnapsToNearestNode() throws IOException {
+        CampusRouter router = new CampusRouter(WalkwayGraph.load(new StringReader(SQUARE)));
+        // About 50 m from a and from b
+        Route route = router.findRoute(new LatLon(49.2600, -123.2507), new LatLon(49.2610, -123.2507));
+        assertNotNull(route);
+        assertEquals(2, route.getNumberOfPoints());
+        assertEquals(49260000, route.getLatitudeE6(0));
+        assertEquals(-123250000, route.getLongitudeE6(0));
+        assertEquals(49261000, route.getLatitudeE6(1));
+    }
+
+    @Test
+    public void testSamePlace() throws IOException {
+        CampusRouter router = new CampusRouter(WalkwayGraph.load(new StringReader(SQUARE)));
+        Route route = router.findRoute(new LatLon(49.26, -123.25), new LatLon(49.26, -123.25));
+        assertEquals(1, route.getNumberOfPoints());
+        assertEquals(0, route.getTime(), 0);
+    }
+
+    @Test
+    public void testTooFarToSnap() throws IOException {
+        CampusRouter router = new CampusRouter(WalkwayGraph.load(new StringReader(SQUARE)));
+        // About 220 m south of e
+        assertNull(router.findRoute(new LatLon(49.256, -123.249), new LatLon(49.26, -123.25)));
+        assertNull(router.findRoute(new LatLon(49.26, -123.25), new LatLon(49.256, -123.249)));
+    }
+
+    @Test
+    public void testUnreachable() throws IOException {
+        CampusRouter router = new CampusRouter(WalkwayGraph.load(new StringReader(SQUARE)));
+        assertNull(router.findRoute(new LatLon(49.26, -123.25), new LatLon(49.263, -123.249)));
+    }
+
+    @Test
+    public void testEmptyGraph() throws IOException {
+        CampusRouter router = new CampusRouter(WalkwayGraph.load(new StringReader("")));
+        assertNull(router.findRoute(new LatLon(49.26, -123.25), new LatLon(49.26, -123.25)));
+    }
+
+    @Test
+    public void testMatchesDijkstraOnRandomGraphs() throws IOException {
+        Random random = new Random(210);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 50 + random.nextInt(150);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                text.append("node|n").append(i).append('|').append(49.26 + random.nextDouble() * 0.01)
+                        .append('|').append(-123.25 - random.nextDouble() * 0.015).append('\n');
+            }
+            for (int i = 0; i < 2 * n; i++)
+                text.append("way|n").append(random.nextInt(n)).append("|n").append(random.nextInt(n)).append('\n');
+            WalkwayGraph graph = WalkwayGraph.load(new StringReader(text.toString()));
+            CampusRouter router = new CampusRouter(graph);
+
+            for (int q = 0; q < 20; q++) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                double[] shortest = dijkstra(graph, from);
+                Route route = router.findRoute(point(graph, from), point(graph, to));
+                if (Double.isInfinite(shortest[to])) {
+                    assertNull(route);
+                } else {
+                    assertNotNull(route);
+                    assertEquals(shortest[to] / CampusRouter.WALKING_SPEED, route.getTime(), 1E-3);
+                }
+            }
+        }
+    }
+
+    private static LatLon point(WalkwayGraph graph, int node) {
+        return LatLon.fromE6(graph.getLatitudeE6(node), graph.getLongitudeE6(node));
+    }
+
+    private static double[] dijkstra(WalkwayGraph graph, int source) {
+        int n = graph.getNumberOfNodes();
+        double[] distance = new double[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[source] = 0;
+        for (int round = 0; round < n; round++) {
+            int node = -1;
+            for (int i = 0; i < n; i++) {
+                if (!done[i] && (node < 0 || distance[i] < distance[node]))
+                    node = i;
+            }
+            if (Double.isInfinite(distance[node]))
+                break;
+            done[node] = true;
+            for (int e = graph.getFirstEdge(node); e < graph.getEndOfEdges(node); e++) {
+                int next = graph.getEdgeTarget(e);
+                distance[next] = Math.min(distance[next], distance[node] + graph.getEdgeLength(e));
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,194 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compare ConcurrentIntMap with the plain HashMap<Integer, ?> that StudentManager
+ * used before, for memory held, single-threaded lookups and inserts from several
+ * threads at once. Memory and lookups are measured on the plain, unsynchronized
+ * map, so lookups are timed without any locking on the HashMap side. A plain
+ * HashMap cannot take inserts from several threads, so for inserts it is wrapped
+ * with Collections.synchronizedMap. Run it on a desktop JVM from the
+ * compiled test classes:
+ *   java -cp <main classes>:<test classes> ca.ubc.cs.cpsc210.meetup.util.ConcurrentIntMapBenchmark [entries]
+ * Every measurement is repeated and the best round reported, after a warm-up
+ * round, so that JIT compilation and stray garbage collections do not count.
+ */
+public class ConcurrentIntMapBenchmark {
+
+    private static final int DEFAULT_ENTRIES = 100000;
+    private static final int ROUNDS = 5;
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        int entries = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ENTRIES;
+        int[] keys = new int[entries];
+        Random random = new Random(42);
+        for (int i = 0; i < entries; i++)
+            keys[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+        Object value = new Object();
+
+        System.out.println(entries + " entries, best of " + ROUNDS + " rounds");
+        System.out.printf("memory   HashMap %6.2f MB   ConcurrentIntMap %6.2f MB%n",
+                hashMapMemory(keys, value) / 1E6, intMapMemory(keys, value) / 1E6);
+
+        long hashMapLookups = Long.MAX_VALUE;
+        long intMapLookups = Long.MAX_VALUE;
+        long hashMapInserts = Long.MAX_VALUE;
+        long intMapInserts = Long.MAX_VALUE;
+        Map<Integer, Object> hashMap = filledHashMap(keys, value);
+        ConcurrentIntMap<Object> intMap = filledIntMap(keys, value);
+        for (int round = 0; round <= ROUNDS; round++) {
+            long a = timeLookups(hashMap, keys);
+            long b = timeLookups(intMap, keys);
+            long c = timeConcurrentInserts(Collections.synchronizedMap(new HashMap<Integer, Object>()), keys, value);
+            long d = timeConcurrentInserts(new ConcurrentIntMap<Object>(), keys, value);
+            // The first round only warms up
+            if (round == 0)
+                continue;
+            hashMapLookups = Math.min(hashMapLookups, a);
+            intMapLookups = Math.min(intMapLookups, b);
+            hashMapInserts = Math.min(hashMapInserts, c);
+            intMapInserts = Math.min(intMapInserts, d);
+        }
+        System.out.printf("lookups  HashMap %6.2f ms   ConcurrentIntMap %6.2f ms%n",
+                hashMapLookups / 1E6, intMapLookups / 1E6);
+        System.out.printf("inserts from %d threads  synchronized HashMap %6.2f ms   ConcurrentIntMap %6.2f ms%n",
+                THREADS, hashMapInserts / 1E6, intMapInserts / 1E6);
+    }
+
+    private static Map<Integer, Object> filledHashMap(int[] keys, Object value) {
+        Map<Integer, Object> map = new HashMap<Integer, Object>();
+        for (int key : keys)
+            map.put(key, value);
+        return map;
+    }
+
+    private static ConcurrentIntMap<Object> filledIntMap(int[] keys, Object value) {
+        ConcurrentIntMap<Object> map = new ConcurrentIntMap<Object>();
+        for (int key : keys)
+            map.putIfAbsent(key, value);
+        return map;
+    }
+
+    private static long hashMapMemory(int[] keys, Object value) {
+        long before = usedMemory();
+        Map<Integer, Object> map = filledHashMap(keys, value);
+        long after = usedMemory();
+        keepAlive(map.size());
+        return after - before;
+    }
+
+    private static long intMapMemory(int[] keys, Object value) {
+        long before = usedMemory();
+        ConcurrentIntMap<Object> map = filledIntMap(keys, value);
+        long after = usedMemory();
+        keepAlive(map.size());
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long timeLookups(Map<Integer, Object> map, int[] keys) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (int key : keys) {
+            if (map.get(key) != null)
+                found++;
+        }
+        long time = System.nanoTime() - start;
+        keepAlive(found);
+        return time;
+    }
+
+    private static long timeLookups(ConcurrentIntMap<Object> map, int[] keys) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (int key : keys) {
+            if (map.get(key) != null)
+                found++;
+        }
+        long time = System.nanoTime() - start;
+        keepAlive(found);
+        return time;
+    }
+
+    private static long timeConcurrentInserts(final Map<Integer, Object> map, final int[] keys,
+                                              final Object value) throws InterruptedException {
+        return timeThreads(keys.length, new Inserter() {
+            @Override
+            public void insert(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    if (!map.containsKey(keys[i]))
+                        map.put(keys[i], value);
+                }
+            }
+        });
+    }
+
+    private static long timeConcurrentInserts(final ConcurrentIntMap<Object> map, final int[] keys,
+                                              final Object value) throws InterruptedException {
+        return timeThreads(keys.length, new Inserter() {
+            @Override
+            public void insert(int from, int to) {
+                for (int i = from; i < to; i++)
+                    map.putIfAbsent(keys[i], value);
+            }
+        });
+    }
+
+    private interface Inserter {
+        void insert(int from, int to);
+    }
+
+    /**
+     * Split the entries between the threads, start them together and time until all are done
+     */
+    private static long timeThreads(int entries, final Inserter inserter) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int from = (int) ((long) entries * t / THREADS);
+            final int to = (int) ((long) entries * (t + 1) / THREADS);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        inserter.insert(from, to);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    // Stop the JIT from dropping work whose result is never used
+    private static volatile long sink;
+
+    private static void keepAlive(long value) {
+        sink += value;
+    }
+}
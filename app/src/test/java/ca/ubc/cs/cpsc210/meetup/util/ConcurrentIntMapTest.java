@@ -0,0 +1,101 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIntMapTest {
+
+    @Test
+    public void testPutIfAbsentKeepsFirstValue() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<String>();
+        assertNull(map.putIfAbsent(42, "first"));
+        assertEquals("first", map.putIfAbsent(42, "second"));
+        assertEquals("first", map.get(42));
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(42));
+        assertFalse(map.containsKey(43));
+        assertNull(map.get(43));
+    }
+
+    @Test
+    public void testUnusualKeys() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<String>();
+        // The last two differ only in their high bits
+        int[] keys = { 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1 << 20, 2 << 20 };
+        for (int key : keys)
+            assertNull(map.putIfAbsent(key, "v" + key));
+        for (int key : keys)
+            assertEquals("v" + key, map.get(key));
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    public void testGrowsFromSmallExpectedSize() {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<Integer>(1);
+        for (int i = 0; i < 10000; i++)
+            assertNull(map.putIfAbsent(i * 7919, i));
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++)
+            assertEquals(Integer.valueOf(i), map.get(i * 7919));
+        assertEquals(10000, new HashSet<Integer>(map.values()).size());
+    }
+
+    @Test
+    public void testPutAllIfAbsent() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<String>();
+        map.putIfAbsent(2, "old");
+        int[] keys = { 1, 2, 3, 3, 4 };
+        String[] values = { "a", "b", "c", "d", "e" };
+        // Only the first four entries are used
+        assertEquals(2, map.putAllIfAbsent(keys, values, 4));
+        assertEquals("a", map.get(1));
+        assertEquals("old", map.get(2));
+        assertEquals("c", map.get(3));
+        assertNull(map.get(4));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testConcurrentPutsAddEachKeyOnce() throws InterruptedException {
+        final ConcurrentIntMap<Integer> map = new ConcurrentIntMap<Integer>();
+        final int threads = 8;
+        final int keys = 5000;
+        final AtomicInteger added = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // Every thread puts every key, in a different order
+                    for (int i = 0; i < keys; i++) {
+                        if (map.putIfAbsent((i * (id + 1)) % keys, id) == null)
+                            added.incrementAndGet();
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        assertEquals(keys, added.get());
+        assertEquals(keys, map.size());
+        assertEquals(keys, map.values().size());
+    }
+}
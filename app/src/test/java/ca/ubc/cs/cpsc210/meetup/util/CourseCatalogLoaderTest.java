@@ -0,0 +1,139 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+import ca.ubc.cs.cpsc210.meetup.model.BuildingFactory;
+import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.Section;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CourseCatalogLoaderTest {
+
+    private static final String CATALOG =
+            "# A small catalog\n"
+            + "\n"
+            + "building|DMP|49.261474|-123.248060\n"
+            + "building|Buchanan|49.269258|-123.254784\n"
+            + "section|CPSC|210|201|MWF|9:00|9:50|DMP\n"
+            + "section|CPSC|210|202|TR|12:30|14:00|Buchanan\n"
+            + "  section|CPSC|221|101|MWF|14:00|15:00|DMP  \n"
+            + "section|ENGL|112|003|TR|8:00|9:30|Buchanan\n";
+
+    // Every section in CATALOG, as code, number and section name
+    private static final String[][] SECTIONS = {
+            { "CPSC", "210", "201" }, { "CPSC", "210", "202" }, { "CPSC", "221", "101" }, { "ENGL", "112", "003" }
+    };
+
+    @Before
+    public void setUp() {
+        BuildingFactory.reset();
+        CourseFactory.reset();
+    }
+
+    @After
+    public void tearDown() {
+        BuildingFactory.reset();
+        CourseFactory.reset();
+    }
+
+    @Test
+    public void testLoadText() throws IOException {
+        assertEquals(4, CourseCatalogLoader.loadText(new StringReader(CATALOG)));
+        assertEquals(2, BuildingFactory.getInstance().size());
+
+        Section section = CourseFactory.getInstance().getSection("CPSC", 210, "202");
+        assertNotNull(section);
+        assertEquals("TR", section.getDay());
+        assertEquals(12 * 60 + 30, section.getCourseTime().getStartMinuteOfDay());
+        assertEquals(14 * 60, section.getCourseTime().getEndMinuteOfDay());
+        assertSame(BuildingFactory.getInstance().findBuilding("Buchanan"), section.getBuilding());
+        assertSame(CourseFactory.getInstance().findCourse("CPSC", 210), section.getCourse());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        CourseCatalogLoader.loadText(new StringReader(CATALOG));
+        List<String> fromText = snapshot();
+
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        CourseCatalogLoader.compile(new StringReader(CATALOG), compiled);
+        BuildingFactory.reset();
+        CourseFactory.reset();
+        assertEquals(4, CourseCatalogLoader.loadBinary(new ByteArrayInputStream(compiled.toByteArray())));
+
+        assertEquals(fromText, snapshot());
+    }
+
+    @Test
+    public void testRejectsIllFormedText() {
+        assertTextRejected("building|DMP|49.26\n");
+        assertTextRejected("building|DMP|north|-123.24\n");
+        assertTextRejected("section|CPSC|210|201|MWF|9:00|9:50|Nowhere\n");
+        assertTextRejected("building|DMP|49.26|-123.24\nsection|CPSC|210|201|MWF|10:00|9:00|DMP\n");
+        assertTextRejected("room|DMP|110\n");
+    }
+
+    @Test
+    public void testRejectsOtherBinary() {
+        byte[] notACatalog = { 'M', 'R', 'T', 'B', 0, 0, 0, 1 };
+        try {
+            CourseCatalogLoader.loadBinary(new ByteArrayInputStream(notACatalog));
+            fail("Loaded something that is not a catalog");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRejectsVersionOneBinary() {
+        // Version 1 held coordinates as doubles, so an old cache must be rebuilt from text
+        byte[] versionOne = { 'M', 'C', 'A', 'T', 0, 0, 0, 1, 0, 0, 0, 0 };
+        try {
+            CourseCatalogLoader.loadBinary(new ByteArrayInputStream(versionOne));
+            fail("Loaded a version 1 catalog");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static void assertTextRejected(String text) {
+        try {
+            CourseCatalogLoader.loadText(new StringReader(text));
+            fail("Loaded " + text);
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    /*
+     * Describe every building and section loaded, to compare two loads
+     */
+    private static List<String> snapshot() {
+        List<String> lines = new ArrayList<String>();
+        for (Building building : BuildingFactory.getInstance().getBuildings()) {
+            lines.add(building.getName() + " " + building.getLatLon().getLatitudeE6() + " "
+                    + building.getLatLon().getLongitudeE6());
+        }
+        for (String[] id : SECTIONS) {
+            Section section = CourseFactory.getInstance().getSection(id[0], Integer.parseInt(id[1]), id[2]);
+            lines.add(section.getCourse().getCode() + " " + section.getCourse().getNumber() + " "
+                    + section.getName() + " " + section.getDay() + " " + section.getCourseTime() + " "
+                    + section.getBuilding().getName());
+        }
+        return lines;
+    }
+}
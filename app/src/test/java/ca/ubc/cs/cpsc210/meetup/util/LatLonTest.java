@@ -0,0 +1,75 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LatLonTest {
+
+    @Test
+    public void testRoundsToNearestMicrodegree() {
+        assertEquals(49264800, LatLon.toE6(49.2648));
+        assertEquals(-123253000, LatLon.toE6(-123.2530));
+        assertEquals(1, LatLon.toE6(0.0000006));
+        assertEquals(0, LatLon.toE6(0.0000004));
+        assertEquals(-1, LatLon.toE6(-0.0000006));
+        assertEquals(180000000, LatLon.toE6(180));
+    }
+
+    @Test
+    public void testDegreesAndMicrodegrees() {
+        LatLon latLon = new LatLon(49.26480049, -123.25300051);
+        assertEquals(49264800, latLon.getLatitudeE6());
+        assertEquals(-123253001, latLon.getLongitudeE6());
+        assertEquals(49.2648, latLon.getLatitude(), 0);
+        assertEquals(-123.253001, latLon.getLongitude(), 0);
+    }
+
+    @Test
+    public void testFromE6() {
+        LatLon latLon = LatLon.fromE6(49261474, -123248060);
+        assertEquals(49261474, latLon.getLatitudeE6());
+        assertEquals(-123248060, latLon.getLongitudeE6());
+        assertEquals(new LatLon(49.261474, -123.248060), latLon);
+        // Degrees read back convert to the same microdegrees
+        assertEquals(latLon, new LatLon(latLon.getLatitude(), latLon.getLongitude()));
+    }
+
+    @Test
+    public void testEqualityIsByMicrodegree() {
+        LatLon a = new LatLon(49.2648, -123.2530);
+        LatLon b = new LatLon(49.26480001, -123.25299999);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(new LatLon(49.264801, -123.2530)));
+        assertFalse(a.equals(new LatLon(49.2648, -123.253001)));
+        // Swapping latitude and longitude is a different point
+        assertFalse(LatLon.fromE6(1, 2).equals(LatLon.fromE6(2, 1)));
+        assertFalse(a.equals(null));
+        assertFalse(a.equals("49.2648,-123.2530"));
+    }
+
+    @Test
+    public void testDefaultAndIllegal() {
+        LatLon unknown = new LatLon();
+        assertEquals(90000000, unknown.getLatitudeE6());
+        assertEquals(0, unknown.getLongitudeE6());
+        assertFalse(unknown.isIllegal());
+        assertFalse(new LatLon(49.2648, -123.2530).isIllegal());
+        assertTrue(new LatLon(91, 0).isIllegal());
+        assertTrue(new LatLon(49, 180.5).isIllegal());
+        assertTrue(new LatLon(49, -180.5).isIllegal());
+    }
+
+    @Test
+    public void testDistance() {
+        LatLon dmp = new LatLon(49.261474, -123.248060);
+        LatLon buchanan = new LatLon(49.269258, -123.254784);
+        assertEquals(0, LatLon.distanceBetweenTwoLatLon(dmp, dmp), 0);
+        assertEquals(LatLon.distanceBetweenTwoLatLon(dmp, buchanan), LatLon.distanceBetweenTwoLatLon(buchanan, dmp), 1E-9);
+        // One microdegree of latitude is about 11 cm
+        assertEquals(0.111, LatLon.distanceBetweenTwoLatLon(dmp, LatLon.fromE6(49261475, -123248060)), 0.001);
+    }
+}
@@ -0,0 +1,174 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrderedFuturesTest {
+
+    private static final long CHECK_MILLIS = 20;
+
+    private AtomicBoolean cancelled;
+    private OrderedFutures.Waiter waiter;
+    private List<String> events;
+    private OrderedFutures.Listener listener;
+
+    @Before
+    public void setUp() {
+        cancelled = new AtomicBoolean();
+        waiter = new OrderedFutures.Waiter() {
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+        events = new ArrayList<String>();
+        listener = new OrderedFutures.Listener() {
+            @Override
+            public void failed(int index, Throwable cause) {
+                events.add("failed " + index + " " + cause.getMessage());
+            }
+
+            @Override
+            public void timedOut(int index) {
+                events.add("timed out " + index);
+            }
+        };
+    }
+
+    @Test
+    public void testResultsInOrder() {
+        List<FutureTask<String>> futures = Arrays.asList(done("a"), done("b"), done("c"));
+        assertEquals(Arrays.asList("a", "b", "c"), OrderedFutures.await(futures, in(1000), CHECK_MILLIS, waiter, listener));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testNothingToWaitFor() {
+        assertTrue(OrderedFutures.await(new ArrayList<FutureTask<String>>(), in(1000), CHECK_MILLIS, waiter, listener).isEmpty());
+    }
+
+    @Test
+    public void testFailureIsLeftOut() {
+        List<FutureTask<String>> futures = Arrays.asList(done("a"), failed("no route"), done("c"));
+        assertEquals(Arrays.asList("a", null, "c"), OrderedFutures.await(futures, in(1000), CHECK_MILLIS, waiter, listener));
+        assertEquals(Arrays.asList("failed 1 no route"), events);
+    }
+
+    @Test
+    public void testCancelledFutureIsLeftOut() {
+        FutureTask<String> cancelledLeg = pending();
+        cancelledLeg.cancel(true);
+        List<FutureTask<String>> futures = Arrays.asList(done("a"), cancelledLeg, done("c"));
+        assertEquals(Arrays.asList("a", null, "c"), OrderedFutures.await(futures, in(1000), CHECK_MILLIS, waiter, listener));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testDeadlineCancelsTheRest() {
+        FutureTask<String> slow = pending();
+        FutureTask<String> after = pending();
+        List<FutureTask<String>> futures = Arrays.asList(done("a"), slow, after);
+        long start = System.nanoTime();
+        assertEquals(Arrays.asList("a", null, null), OrderedFutures.await(futures, in(150), CHECK_MILLIS, waiter, listener));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(Arrays.asList("timed out 1"), events);
+        assertTrue(slow.isCancelled());
+        assertTrue(after.isCancelled());
+    }
+
+    @Test
+    public void testDoneFuturesAreUsedAfterTheDeadline() {
+        List<FutureTask<String>> futures = Arrays.asList(done("a"), done("b"));
+        assertEquals(Arrays.asList("a", "b"), OrderedFutures.await(futures, in(-1000), CHECK_MILLIS, waiter, listener));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testCancelledWaiterCancelsEverything() throws InterruptedException {
+        FutureTask<String> slow = pending();
+        FutureTask<String> after = pending();
+        Thread canceller = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cancelled.set(true);
+            }
+        };
+        canceller.start();
+        long start = System.nanoTime();
+        List<String> results = OrderedFutures.await(Arrays.asList(slow, after), in(10000), CHECK_MILLIS, waiter, listener);
+        // Noticed within a check or so, long before the deadline
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(Arrays.asList((String) null, null), results);
+        assertTrue(slow.isCancelled());
+        assertTrue(after.isCancelled());
+        assertTrue(events.isEmpty());
+        canceller.join();
+    }
+
+    @Test
+    public void testInterruptCancelsEverythingAndIsKept() {
+        FutureTask<String> slow = pending();
+        Thread.currentThread().interrupt();
+        List<String> results = OrderedFutures.await(Arrays.asList(done("a"), slow), in(10000), CHECK_MILLIS, waiter, listener);
+        assertTrue(Thread.interrupted());
+        // The first is done, so waiting for it is not interrupted
+        assertEquals("a", results.get(0));
+        assertNull(results.get(1));
+        assertTrue(slow.isCancelled());
+        assertTrue(events.isEmpty());
+    }
+
+    private static long in(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static FutureTask<String> done(final String result) {
+        FutureTask<String> future = new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return result;
+            }
+        });
+        future.run();
+        return future;
+    }
+
+    private static FutureTask<String> failed(final String message) {
+        FutureTask<String> future = new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                throw new IOException(message);
+            }
+        });
+        future.run();
+        return future;
+    }
+
+    // Never run, so it is never done unless cancelled
+    private static FutureTask<String> pending() {
+        return new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "never";
+            }
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import ca.ubc.cs.cpsc210.meetup.BuildConfig;
+import ca.ubc.cs.cpsc210.meetup.model.Place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// android.util.JsonReader is only a stub in plain JVM tests, so these run under Robolectric
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PlaceParserTest {
+
+    @Test
+    public void testVenues() throws IOException {
+        List<Place> places = parse("{\"meta\": {\"code\": 200},"
+                + " \"response\": {\"headerLocation\": \"UBC\", \"totalResults\": 3, \"groups\": ["
+                + "{\"type\": \"Recommended Places\", \"items\": ["
+                + "{\"reasons\": {\"count\": 0}, \"venue\": {\"id\": \"a1\", \"name\": \"Koerner's Pub\","
+                + " \"contact\": {}, \"location\": {\"address\": \"6371 Crescent Rd\", \"lat\": 49.2694, \"lng\": -123.2587},"
+                + " \"categories\": [{\"id\": \"c1\", \"name\": \"Pub\", \"primary\": true}, {\"name\": \"Bar\"}],"
+                + " \"price\": {\"tier\": 2, \"message\": \"Moderate\"}, \"rating\": 7.9}},"
+                + "{\"venue\": {\"name\": \"Bean Around the World\", \"location\": {\"lat\": 49.2666, \"lng\": -123.2503},"
+                + " \"categories\": [{\"name\": \"Cafe\"}]}}]},"
+                + "{\"type\": \"Nearby\", \"items\": ["
+                + "{\"venue\": {\"name\": \"Sage Bistro\", \"location\": {\"lat\": 49.2689, \"lng\": -123.2556},"
+                + " \"price\": {\"tier\": 3}, \"categories\": []}}]}]}}");
+        assertEquals(3, places.size());
+
+        Place pub = places.get(0);
+        assertEquals("Koerner's Pub", pub.getName());
+        assertEquals(new LatLon(49.2694, -123.2587), pub.getLatLon());
+        // Only the first category is kept
+        assertEquals("Pub", pub.getCategory());
+        assertEquals(2, pub.getPrice());
+
+        Place cafe = places.get(1);
+        assertEquals("Bean Around the World", cafe.getName());
+        assertEquals("Cafe", cafe.getCategory());
+        assertEquals(Place.UNKNOWN_PRICE, cafe.getPrice());
+
+        Place bistro = places.get(2);
+        assertEquals("Sage Bistro", bistro.getName());
+        assertNull(bistro.getCategory());
+        assertEquals(3, bistro.getPrice());
+    }
+
+    @Test
+    public void testVenueWithoutNameOrLocationLeftOut() throws IOException {
+        List<Place> places = parse("{\"response\": {\"groups\": [{\"items\": ["
+                + "{\"venue\": {\"location\": {\"lat\": 49.1, \"lng\": -123.1}}},"
+                + "{\"venue\": {\"name\": \"Nowhere\"}},"
+                + "{\"venue\": {\"name\": \"Half way\", \"location\": {\"lat\": 49.1}}},"
+                + "{\"venue\": {\"name\": \"Null name\", \"location\": null}},"
+                + "{\"venue\": null},"
+                + "{\"tips\": []},"
+                + "{\"venue\": {\"name\": \"Somewhere\", \"location\": {\"lat\": 49.1, \"lng\": -123.1}}}]}]}}");
+        assertEquals(1, places.size());
+        assertEquals("Somewhere", places.get(0).getName());
+    }
+
+    @Test
+    public void testNullFieldsSkipped() throws IOException {
+        List<Place> places = parse("{\"response\": {\"groups\": [{\"items\": ["
+                + "{\"venue\": {\"name\": \"Place\", \"location\": {\"lat\": 49.1, \"lng\": -123.1, \"address\": null},"
+                + " \"price\": null, \"categories\": null, \"url\": null}}]}]}}");
+        assertEquals(1, places.size());
+        assertNull(places.get(0).getCategory());
+        assertEquals(Place.UNKNOWN_PRICE, places.get(0).getPrice());
+    }
+
+    @Test
+    public void testBadTierIsUnknownPrice() throws IOException {
+        List<Place> places = parse("{\"response\": {\"groups\": [{\"items\": ["
+                + "{\"venue\": {\"name\": \"A\", \"location\": {\"lat\": 49.1, \"lng\": -123.1}, \"price\": {\"tier\": -3}}},"
+                + "{\"venue\": {\"name\": \"B\", \"location\": {\"lat\": 49.1, \"lng\": -123.1}, \"price\": {\"tier\": null}}},"
+                + "{\"venue\": {\"name\": \"C\", \"location\": {\"lat\": 49.1, \"lng\": -123.1}, \"price\": {\"tier\": \"cheap\"}}}"
+                + "]}]}}");
+        assertEquals(3, places.size());
+        for (Place place : places)
+            assertEquals(Place.UNKNOWN_PRICE, place.getPrice());
+    }
+
+    @Test
+    public void testNoVenues() throws IOException {
+        assertTrue(parse("{\"meta\": {\"code\": 400, \"errorType\": \"param_error\"}}").isEmpty());
+        assertTrue(parse("{\"response\": null}").isEmpty());
+        assertTrue(parse("{\"response\": {\"groups\": []}}").isEmpty());
+        assertTrue(parse("{\"response\": {\"groups\": [{\"items\": []}]}}").isEmpty());
+    }
+
+    @Test
+    public void testMalformedResponse() {
+        try {
+            // Cut off part way through
+            parse("{\"response\": {\"groups\": [{\"items\": [{\"venue\": {\"name\": \"A\"");
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static List<Place> parse(String json) throws IOException {
+        return PlaceParser.parse(new StringReader(json));
+    }
+}
@@ -0,0 +1,149 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RouteCacheTest {
+
+    private static final String TYPE = "pedestrian";
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private Building dmp;
+    private Building buchanan;
+    private Building swing;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = new File(folder.getRoot(), "routes");
+        dmp = new Building("DMP");
+        buchanan = new Building("Buchanan");
+        swing = new Building("Swing");
+    }
+
+    @Test
+    public void testGetWhatWasPut() {
+        RouteCache cache = new RouteCache(directory);
+        assertNull(cache.get(dmp, buchanan, TYPE));
+        cache.put(dmp, buchanan, TYPE, route(1, 120));
+        assertSame(route(1, 120), cache.get(dmp, buchanan, TYPE));
+        // The direction and route type are part of the key
+        assertNull(cache.get(buchanan, dmp, TYPE));
+        assertNull(cache.get(dmp, buchanan, "fastest"));
+    }
+
+    @Test
+    public void testMemoryEvictsLeastRecentlyUsed() throws IOException {
+        // A plain file in place of the directory, so nothing reaches disk
+        File notADirectory = folder.newFile("not-a-directory");
+        RouteCache cache = new RouteCache(notADirectory, 2, HOUR, 1024 * 1024);
+        cache.put(dmp, buchanan, TYPE, route(1, 10));
+        cache.put(dmp, swing, TYPE, route(2, 20));
+        assertNotNull(cache.get(dmp, buchanan, TYPE));
+        cache.put(buchanan, swing, TYPE, route(3, 30));
+
+        assertNotNull(cache.get(dmp, buchanan, TYPE));
+        assertNull(cache.get(dmp, swing, TYPE));
+        assertNotNull(cache.get(buchanan, swing, TYPE));
+    }
+
+    @Test
+    public void testReloadFromDiskInNewInstance() {
+        new RouteCache(directory).put(dmp, buchanan, TYPE, route(5, 321.5));
+        RouteCache reopened = new RouteCache(directory);
+        assertSame(route(5, 321.5), reopened.get(dmp, buchanan, TYPE));
+        reopened.clearMemory();
+        assertSame(route(5, 321.5), reopened.get(dmp, buchanan, TYPE));
+    }
+
+    @Test
+    public void testExpiredInMemory() throws InterruptedException {
+        RouteCache cache = new RouteCache(directory, 8, 50, 1024 * 1024);
+        cache.put(dmp, buchanan, TYPE, route(1, 10));
+        assertNotNull(cache.get(dmp, buchanan, TYPE));
+        Thread.sleep(120);
+        assertNull(cache.get(dmp, buchanan, TYPE));
+    }
+
+    @Test
+    public void testExpiredOnDisk() throws InterruptedException {
+        new RouteCache(directory, 8, 50, 1024 * 1024).put(dmp, buchanan, TYPE, route(1, 10));
+        Thread.sleep(120);
+        assertNull(new RouteCache(directory, 8, 50, 1024 * 1024).get(dmp, buchanan, TYPE));
+        // The stale file is removed when it is found
+        assertEquals(0, routeFiles().length);
+    }
+
+    @Test
+    public void testHashClashIsAMiss() {
+        // "Aa" and "BB" have the same hash code, so the two keys map to the same file
+        Building aa = new Building("Aa");
+        Building bb = new Building("BB");
+        assertEquals(("Aa|DMP|" + TYPE).hashCode(), ("BB|DMP|" + TYPE).hashCode());
+        new RouteCache(directory).put(aa, dmp, TYPE, route(1, 10));
+        assertNull(new RouteCache(directory).get(bb, dmp, TYPE));
+    }
+
+    @Test
+    public void testShortHashesCanBeWritten() {
+        // A name that makes the key's hash code 36, only two hex digits
+        Building shortHash = new Building("y\ud7ec\ud7fb");
+        assertEquals(36, (shortHash.getName() + "|DMP|" + TYPE).hashCode());
+        new RouteCache(directory).put(shortHash, dmp, TYPE, route(1, 10));
+        assertEquals(1, routeFiles().length);
+        assertNotNull(new RouteCache(directory).get(shortHash, dmp, TYPE));
+    }
+
+    @Test
+    public void testTrimmedToSizeCap() {
+        long cap = 4 * 1024;
+        RouteCache cache = new RouteCache(directory, 8, HOUR, cap);
+        // The directory is trimmed on the first put and every TRIM_INTERVAL puts after
+        for (int i = 0; i <= RouteCache.TRIM_INTERVAL; i++)
+            cache.put(new Building("B" + i), dmp, TYPE, route(20, i));
+        long total = 0;
+        for (File file : routeFiles())
+            total += file.length();
+        assertTrue("Directory holds " + total + " bytes", total <= cap);
+        assertTrue(routeFiles().length > 0);
+    }
+
+    private File[] routeFiles() {
+        File[] files = directory.listFiles();
+        return (files == null) ? new File[0] : files;
+    }
+
+    /*
+     * A route with some points that depend on n, so that different routes differ
+     */
+    private static Route route(int n, double time) {
+        int[] shapeE6 = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            shapeE6[2 * i] = 49260000 + n * 100 + i;
+            shapeE6[2 * i + 1] = -123250000 - n * 100 - i;
+        }
+        return new Route(shapeE6, time);
+    }
+
+    private static void assertSame(Route expected, Route actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getTime(), actual.getTime(), 0);
+        assertArrayEquals(expected.getShapeE6(), actual.getShapeE6());
+    }
+}
@@ -0,0 +1,141 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RouteLevelsTest {
+
+    private static final int UBC_LAT_E6 = 49260000;
+    private static final int UBC_LON_E6 = -123250000;
+
+    @Test
+    public void testShortRoutesAreKeptWhole() {
+        int[] two = { UBC_LAT_E6, UBC_LON_E6, UBC_LAT_E6 + 500, UBC_LON_E6 + 500 };
+        RouteLevels levels = new RouteLevels(two);
+        for (int zoom = 0; zoom <= RouteLevels.MAX_ZOOM + 1; zoom++)
+            assertSame(two, levels.getShapeE6(zoom));
+        assertEquals(0, new RouteLevels(new int[0]).getNumberOfPoints());
+    }
+
+    @Test
+    public void testStraightLineKeepsOnlyEnds() {
+        int[] line = new int[2 * 50];
+        for (int i = 0; i < 50; i++) {
+            line[2 * i] = UBC_LAT_E6 + 10 * i;
+            line[2 * i + 1] = UBC_LON_E6 + 20 * i;
+        }
+        RouteLevels levels = new RouteLevels(line);
+        int[] ends = { line[0], line[1], line[98], line[99] };
+        assertArrayEquals(ends, levels.getShapeE6(0));
+        assertArrayEquals(ends, levels.getShapeE6(RouteLevels.MAX_ZOOM));
+        assertSame(line, levels.getShapeE6(RouteLevels.MAX_ZOOM + 1));
+    }
+
+    @Test
+    public void testMatchesDouglasPeuckerAtEveryZoom() {
+        Random random = new Random(210);
+        for (int trial = 0; trial < 100; trial++) {
+            int[] shapeE6 = randomWalk(random, 3 + random.nextInt(500));
+            RouteLevels levels = new RouteLevels(shapeE6);
+            for (int zoom = 0; zoom <= RouteLevels.MAX_ZOOM; zoom++)
+                assertArrayEquals("zoom " + zoom, douglasPeucker(shapeE6, zoom), levels.getShapeE6(zoom));
+        }
+    }
+
+    @Test
+    public void testMorePointsAsZoomGrows() {
+        int[] shapeE6 = randomWalk(new Random(210), 2000);
+        RouteLevels levels = new RouteLevels(shapeE6);
+        for (int zoom = 1; zoom <= RouteLevels.MAX_ZOOM; zoom++) {
+            int[] coarser = levels.getShapeE6(zoom - 1);
+            int[] finer = levels.getShapeE6(zoom);
+            assertTrue(finer.length >= coarser.length);
+            if (finer.length == coarser.length)
+                assertSame(coarser, finer);
+        }
+        assertTrue(levels.getShapeE6(12).length < shapeE6.length / 4);
+        assertSame(levels.getShapeE6(0), levels.getShapeE6(-1));
+    }
+
+    private static int[] randomWalk(Random random, int numberOfPoints) {
+        int[] shapeE6 = new int[2 * numberOfPoints];
+        int lat = UBC_LAT_E6;
+        int lon = UBC_LON_E6;
+        for (int i = 0; i < numberOfPoints; i++) {
+            lat += random.nextInt(41) - 20;
+            lon += random.nextInt(41) - 20;
+            shapeE6[2 * i] = lat;
+            shapeE6[2 * i + 1] = lon;
+        }
+        return shapeE6;
+    }
+
+    /*
+     * Plain recursive Douglas-Peucker at the tolerance of one pixel at a zoom level,
+     * on the same flattening RouteLevels uses
+     */
+    private static int[] douglasPeucker(int[] shapeE6, int zoom) {
+        int numberOfPoints = shapeE6.length / 2;
+        double cosLat = Math.cos(Math.toRadians(shapeE6[0] / 1E6));
+        double metresPerE6 = Math.toRadians(GeoBox.EARTH_RADIUS) / 1E6;
+        double[] x = new double[numberOfPoints];
+        double[] y = new double[numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++) {
+            y[i] = shapeE6[2 * i] * metresPerE6;
+            x[i] = shapeE6[2 * i + 1] * metresPerE6 * cosLat;
+        }
+        double tolerance = 2 * Math.PI * GeoBox.EARTH_RADIUS * cosLat / 256 / (1L << zoom);
+        boolean[] keep = new boolean[numberOfPoints];
+        keep[0] = true;
+        keep[numberOfPoints - 1] = true;
+        simplify(x, y, 0, numberOfPoints - 1, tolerance, keep);
+
+        int[] kept = new int[shapeE6.length];
+        int k = 0;
+        for (int i = 0; i < numberOfPoints; i++) {
+            if (keep[i]) {
+                kept[k++] = shapeE6[2 * i];
+                kept[k++] = shapeE6[2 * i + 1];
+            }
+        }
+        return Arrays.copyOf(kept, k);
+    }
+
+    private static void simplify(double[] x, double[] y, int first, int last, double tolerance, boolean[] keep) {
+        if (last - first < 2)
+            return;
+        int furthest = -1;
+        double furthestDistance = -1;
+        for (int i = first + 1; i < last; i++) {
+            double d = distanceToSegment(x[i], y[i], x[first], y[first], x[last], y[last]);
+            if (d > furthestDistance) {
+                furthestDistance = d;
+                furthest = i;
+            }
+        }
+        if (furthestDistance > tolerance) {
+            keep[furthest] = true;
+            simplify(x, y, first, furthest, tolerance, keep);
+            simplify(x, y, furthest, last, tolerance, keep);
+        }
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0)
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
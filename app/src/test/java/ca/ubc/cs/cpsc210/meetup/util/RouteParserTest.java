@@ -0,0 +1,106 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import ca.ubc.cs.cpsc210.meetup.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+// android.util.JsonReader is only a stub in plain JVM tests, so these run under Robolectric
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class RouteParserTest {
+
+    @Test
+    public void testRoute() throws IOException {
+        Route route = parse("{\"info\": {\"statuscode\": 0, \"messages\": []},"
+                + " \"route\": {\"distance\": 1.2, \"time\": 754,"
+                + " \"legs\": [{\"maneuvers\": [{\"narrative\": \"Go\"}]}],"
+                + " \"shape\": {\"maneuverIndexes\": [0, 2],"
+                + " \"shapePoints\": [49.2648, -123.253, 49.26, -123.2481, 49.2612, -123.2445]}}}");
+        assertEquals(754, route.getTime(), 0);
+        assertEquals(3, route.getNumberOfPoints());
+        assertEquals(49264800, route.getLatitudeE6(0));
+        assertEquals(-123253000, route.getLongitudeE6(0));
+        assertEquals(49260000, route.getLatitudeE6(1));
+        assertEquals(-123248100, route.getLongitudeE6(1));
+        assertEquals(49261200, route.getLatitudeE6(2));
+        assertEquals(-123244500, route.getLongitudeE6(2));
+    }
+
+    @Test
+    public void testLongRoute() throws IOException {
+        // More points than the parser starts with room for
+        StringBuilder json = new StringBuilder("{\"route\": {\"time\": 1, \"shape\": {\"shapePoints\": [");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0)
+                json.append(", ");
+            json.append(49 + i * 0.000001).append(", ").append(-123 - i * 0.000001);
+        }
+        json.append("]}}}");
+        Route route = parse(json.toString());
+        assertEquals(1000, route.getNumberOfPoints());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(49000000 + i, route.getLatitudeE6(i));
+            assertEquals(-123000000 - i, route.getLongitudeE6(i));
+        }
+    }
+
+    @Test
+    public void testDanglingLatitudeDropped() throws IOException {
+        Route route = parse("{\"route\": {\"time\": 5, \"shape\": {\"shapePoints\": [49.1, -123.1, 49.2]}}}");
+        assertEquals(1, route.getNumberOfPoints());
+        assertEquals(49100000, route.getLatitudeE6(0));
+        assertEquals(-123100000, route.getLongitudeE6(0));
+    }
+
+    @Test
+    public void testNullFieldsSkipped() throws IOException {
+        Route route = parse("{\"route\": {\"time\": null, \"legs\": null,"
+                + " \"shape\": {\"shapePoints\": [49.1, -123.1]}}}");
+        // No time was given
+        assertEquals(-1, route.getTime(), 0);
+        assertEquals(1, route.getNumberOfPoints());
+    }
+
+    @Test
+    public void testEmptyShape() throws IOException {
+        Route route = parse("{\"route\": {\"time\": 0, \"shape\": {\"shapePoints\": []}}}");
+        assertEquals(0, route.getNumberOfPoints());
+    }
+
+    @Test
+    public void testNoRoute() {
+        assertRejected("{\"info\": {\"statuscode\": 402, \"messages\": [\"Unable to route\"]}}");
+        assertRejected("{\"route\": null}");
+        assertRejected("{\"route\": {\"time\": 12, \"routeError\": {\"errorCode\": 2}}}");
+        assertRejected("{\"route\": {\"time\": 12, \"shape\": null}}");
+        assertRejected("{\"route\": {\"time\": 12, \"shape\": {\"maneuverIndexes\": []}}}");
+    }
+
+    @Test
+    public void testMalformedResponse() {
+        // Cut off part way through
+        assertRejected("{\"route\": {\"shape\": {\"shapePoints\": [49.1, -123.1");
+    }
+
+    private static Route parse(String json) throws IOException {
+        return RouteParser.parse(new StringReader(json));
+    }
+
+    private static void assertRejected(String json) {
+        try {
+            parse(json);
+            fail("Expected IOException for " + json);
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+
+import ca.ubc.cs.cpsc210.meetup.model.BuildingFactory;
+
+/**
+ * Build a route table for the app to ship in res/raw. It lives with the test
+ * classes so that it is not packaged into the app. Run it on a desktop JVM from
+ * the compiled classes:
+ *   java -cp <main classes>:<test classes> ca.ubc.cs.cpsc210.meetup.util.RouteTableBuilder
+ *       course_catalog.txt walkways.txt route_table.bin
+ * Every pair of buildings in the course catalog is routed once over the walkways.
+ * The app uses the table ahead of MapQuest, so only ship one built from a detailed
+ * footpath extract. The bundled campus_walkways.txt only joins buildings with
+ * straight lines, and a table built from it would draw every leg that way.
+ */
+public class RouteTableBuilder {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: RouteTableBuilder <course catalog> <walkways> <route table>");
+            System.exit(2);
+        }
+
+        Reader catalog = new InputStreamReader(new FileInputStream(args[0]), "UTF-8");
+        try {
+            CourseCatalogLoader.loadText(catalog);
+        } finally {
+            catalog.close();
+        }
+
+        WalkwayGraph graph;
+        Reader walkways = new InputStreamReader(new FileInputStream(args[1]), "UTF-8");
+        try {
+            graph = WalkwayGraph.load(walkways);
+        } finally {
+            walkways.close();
+        }
+
+        OutputStream out = new FileOutputStream(args[2]);
+        int unrouted;
+        try {
+            unrouted = RouteTable.write(BuildingFactory.getInstance().getBuildings(), new CampusRouter(graph), out);
+        } finally {
+            out.close();
+        }
+        int buildings = BuildingFactory.getInstance().size();
+        System.out.println("Routed " + (buildings * (buildings - 1) / 2 - unrouted) + " pairs of " + buildings
+                + " buildings, " + unrouted + " unreachable");
+    }
+}
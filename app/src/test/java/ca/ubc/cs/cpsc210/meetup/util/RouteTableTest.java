@@ -0,0 +1,139 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class RouteTableTest {
+
+    // Three buildings joined by walkways, and one on its own
+    private static final String WALKWAYS =
+            "node|DMP|49.261474|-123.248060\n"
+            + "node|bend|49.262500|-123.250000\n"
+            + "node|Swing|49.262786|-123.255044\n"
+            + "node|Woodward|49.264704|-123.247536\n"
+            + "node|Island|49.272000|-123.262000\n"
+            + "way|DMP|bend|Swing\n"
+            + "way|DMP|Woodward\n";
+
+    private CampusRouter router;
+    private List<Building> buildings;
+    private byte[] table;
+
+    @Before
+    public void setUp() throws IOException {
+        router = new CampusRouter(WalkwayGraph.load(new StringReader(WALKWAYS)));
+        buildings = Arrays.asList(
+                new Building("DMP", new LatLon(49.261474, -123.248060)),
+                new Building("Swing", new LatLon(49.262786, -123.255044)),
+                new Building("Woodward", new LatLon(49.264704, -123.247536)),
+                new Building("Island", new LatLon(49.272000, -123.262000)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Island cannot be reached from any of the other three
+        assertEquals(3, RouteTable.write(buildings, router, out));
+        table = out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTripMatchesRouter() throws IOException {
+        RouteTable routeTable = new RouteTable(ByteBuffer.wrap(table));
+        assertEquals(4, routeTable.getNumberOfBuildings());
+        for (Building from : buildings.subList(0, 3)) {
+            for (Building to : buildings.subList(0, 3)) {
+                if (from == to)
+                    continue;
+                Route expected = router.findRoute(from.getLatLon(), to.getLatLon());
+                Route actual = routeTable.get(from, to);
+                assertNotNull(actual);
+                assertEquals(expected.getTime(), actual.getTime(), 0.01);
+                assertArrayEquals(expected.getShapeE6(), actual.getShapeE6());
+            }
+        }
+    }
+
+    @Test
+    public void testReversedLookup() throws IOException {
+        RouteTable routeTable = new RouteTable(ByteBuffer.wrap(table));
+        Route there = routeTable.get(buildings.get(0), buildings.get(1));
+        Route back = routeTable.get(buildings.get(1), buildings.get(0));
+        assertEquals(3, there.getNumberOfPoints());
+        assertEquals(there.getTime(), back.getTime(), 0);
+        for (int p = 0; p < 3; p++) {
+            assertEquals(there.getLatitudeE6(p), back.getLatitudeE6(2 - p));
+            assertEquals(there.getLongitudeE6(p), back.getLongitudeE6(2 - p));
+        }
+    }
+
+    @Test
+    public void testUnroutedAndUnknown() throws IOException {
+        RouteTable routeTable = new RouteTable(ByteBuffer.wrap(table));
+        assertNull(routeTable.get(buildings.get(0), buildings.get(3)));
+        assertNull(routeTable.get(buildings.get(3), buildings.get(2)));
+        assertNull(routeTable.get(buildings.get(0), buildings.get(0)));
+        assertNull(routeTable.get(buildings.get(0), new Building("Buchanan")));
+    }
+
+    @Test
+    public void testEmptyTable() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, RouteTable.write(Arrays.<Building>asList(), router, out));
+        assertEquals(0, new RouteTable(ByteBuffer.wrap(out.toByteArray())).getNumberOfBuildings());
+    }
+
+    @Test
+    public void testBadMagic() {
+        byte[] bad = table.clone();
+        bad[0] = 'X';
+        assertRejected(bad);
+        bad = table.clone();
+        // The version
+        bad[7] = 9;
+        assertRejected(bad);
+    }
+
+    @Test
+    public void testTruncatedHeaderAndIndex() {
+        assertRejected(new byte[6]);
+        assertRejected(Arrays.copyOf(table, 20));
+        // The routes hold 3 + 2 + 4 points of 8 bytes, so this cuts the last index entry in half
+        assertRejected(Arrays.copyOf(table, table.length - 9 * 8 - 6));
+    }
+
+    @Test
+    public void testTruncatedPoints() throws IOException {
+        // Drop the last point, so the last route stored is cut short
+        RouteTable routeTable = new RouteTable(ByteBuffer.wrap(Arrays.copyOf(table, table.length - 8)));
+        int missing = 0;
+        for (Building from : buildings.subList(0, 3)) {
+            for (Building to : buildings.subList(0, 3)) {
+                if (from != to && routeTable.get(from, to) == null)
+                    missing++;
+            }
+        }
+        // One pair, both ways
+        assertEquals(2, missing);
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            new RouteTable(ByteBuffer.wrap(bytes));
+            fail("Read a bad table");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ubc.cs.cpsc210.meetup.model.Building;
+import ca.ubc.cs.cpsc210.meetup.model.Course;
+import ca.ubc.cs.cpsc210.meetup.model.CourseFactory;
+import ca.ubc.cs.cpsc210.meetup.model.Section;
+import ca.ubc.cs.cpsc210.meetup.model.Student;
+import ca.ubc.cs.cpsc210.meetup.model.StudentManager;
+import ca.ubc.cs.cpsc210.meetup.util.StudentBatchLoader.SectionReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StudentBatchLoaderTest {
+
+    private StudentManager studentManager;
+    private CountingCourseFactory courseFactory;
+
+    @Before
+    public void setUp() {
+        CourseFactory.reset();
+        studentManager = new StudentManager();
+        courseFactory = new CountingCourseFactory();
+        Course course = courseFactory.getCourse("CPSC", 210);
+        addSection(course, "101", "MWF", "9:00", "10:00");
+        addSection(course, "102", "MWF", "9:30", "10:30");
+        addSection(course, "201", "TR", "11:00", "12:30");
+    }
+
+    @After
+    public void tearDown() {
+        CourseFactory.reset();
+    }
+
+    @Test
+    public void testStudentsAreStoredABatchAtATime() {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 2);
+        loader.addStudent("Smith", "Alice", 1, sections("101"));
+        assertNull(studentManager.get(1));
+        loader.addStudent("Jones", "Bob", 2, sections("101", "201"));
+        assertNotNull(studentManager.get(1));
+        assertNotNull(studentManager.get(2));
+        loader.addStudent("Wong", "Carol", 3, sections("201"));
+        assertNull(studentManager.get(3));
+
+        ImportStatistics statistics = loader.finish();
+        assertEquals(3, studentManager.size());
+        assertEquals("Carol", studentManager.get(3).getFirstName());
+        assertEquals(3, statistics.getStudents());
+        assertEquals(4, statistics.getSections());
+        assertEquals(0, statistics.getSkippedStudents());
+        assertEquals(0, statistics.getSkippedSections());
+        assertEquals(1, studentManager.get(2).getSchedule().getSections("MWF").size());
+        assertEquals(1, studentManager.get(2).getSchedule().getSections("TR").size());
+    }
+
+    @Test
+    public void testEachSectionIsLookedUpOnce() {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 3);
+        for (int id = 1; id <= 10; id++)
+            loader.addStudent("S" + id, "S" + id, id, sections("101", "201", "999"));
+        loader.finish();
+        // Once per section across all four batches, the missing one included
+        assertEquals(3, courseFactory.lookups.size());
+        for (Integer lookups : courseFactory.lookups.values())
+            assertEquals(1, (int) lookups);
+        for (int id = 1; id <= 10; id++)
+            assertEquals(2, studentManager.get(id).getSchedule().getSections("MWF").size()
+                    + studentManager.get(id).getSchedule().getSections("TR").size());
+    }
+
+    @Test
+    public void testUnknownSectionsAreSkipped() {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 10);
+        List<SectionReference> references = new ArrayList<SectionReference>();
+        references.add(new SectionReference("CPSC", 210, "101"));
+        references.add(new SectionReference("CPSC", 210, "999"));
+        references.add(new SectionReference("CPSC", 110, "101"));
+        references.add(new SectionReference("MATH", 210, "101"));
+        loader.addStudent("Smith", "Alice", 1, references);
+        ImportStatistics statistics = loader.finish();
+
+        assertEquals(1, statistics.getStudents());
+        assertEquals(1, statistics.getSections());
+        assertEquals(3, statistics.getSkippedSections());
+        assertEquals(1, studentManager.get(1).getSchedule().getSections("MWF").size());
+    }
+
+    @Test
+    public void testClashingSectionIsSkipped() {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 10);
+        loader.addStudent("Smith", "Alice", 1, sections("101", "102", "101"));
+        ImportStatistics statistics = loader.finish();
+        // Adding 101 twice has no effect the second time, 102 overlaps it
+        assertEquals(2, statistics.getSections());
+        assertEquals(1, statistics.getSkippedSections());
+        assertEquals(1, studentManager.get(1).getSchedule().getSections("MWF").size());
+    }
+
+    @Test
+    public void testRepeatedIdMergesWithStoredStudent() {
+        studentManager.addStudent("Smith", "Alice", 1);
+        Student alice = studentManager.get(1);
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 10);
+        loader.addStudent("Other", "Name", 1, sections("201"));
+        ImportStatistics statistics = loader.finish();
+
+        assertEquals(1, studentManager.size());
+        assertTrue(alice == studentManager.get(1));
+        assertEquals("Alice", studentManager.get(1).getFirstName());
+        assertEquals(1, alice.getSchedule().getSections("TR").size());
+        assertEquals(1, statistics.getStudents());
+    }
+
+    @Test
+    public void testStatistics() {
+        StudentBatchLoader loader = new StudentBatchLoader(studentManager, courseFactory, 10);
+        loader.skipStudent();
+        loader.skipSection();
+        loader.skipSection();
+        loader.addStudent("Smith", "Alice", 1, sections("101", "999"));
+        ImportStatistics statistics = loader.finish();
+
+        assertEquals(1, statistics.getStudents());
+        assertEquals(1, statistics.getSections());
+        assertEquals(1, statistics.getSkippedStudents());
+        assertEquals(3, statistics.getSkippedSections());
+        assertTrue(statistics.getElapsedMillis() >= 0);
+        assertTrue(statistics.toString().startsWith("1 students, 1 sections in "));
+        assertTrue(statistics.toString().endsWith("skipped 1 students and 3 sections"));
+    }
+
+    @Test
+    public void testStatisticsArithmetic() {
+        ImportStatistics statistics = new ImportStatistics(500, 1200, 3, 7, 250000000L);
+        assertEquals(250, statistics.getElapsedMillis());
+        assertEquals(2000, statistics.getStudentsPerSecond(), 1E-9);
+        assertEquals("500 students, 1200 sections in 250 ms (2000 students/s), skipped 3 students and 7 sections",
+                statistics.toString());
+        assertEquals(0, new ImportStatistics(5, 0, 0, 0, 0).getStudentsPerSecond(), 0);
+    }
+
+    @Test
+    public void testNothingToLoad() {
+        ImportStatistics statistics = new StudentBatchLoader(studentManager, courseFactory, 10).finish();
+        assertEquals(0, statistics.getStudents());
+        assertEquals(0, studentManager.size());
+        assertEquals(Collections.<String, Integer>emptyMap(), courseFactory.lookups);
+    }
+
+    private static List<SectionReference> sections(String... names) {
+        List<SectionReference> references = new ArrayList<SectionReference>();
+        for (String name : Arrays.asList(names))
+            references.add(new SectionReference("CPSC", 210, name));
+        return references;
+    }
+
+    private static void addSection(Course course, String name, String day, String start, String end) {
+        Section section = new Section(name, day, start, end, new Building("ICICS"));
+        section.setCourse(course);
+        course.addSection(section);
+    }
+
+    /*
+     * A course factory that counts how often each section is looked up
+     */
+    private static class CountingCourseFactory extends CourseFactory {
+        private Map<String, Integer> lookups = new HashMap<String, Integer>();
+
+        @Override
+        public Section getSection(String code, int number, String sectionId) {
+            String key = code + " " + number + " " + sectionId;
+            Integer count = lookups.get(key);
+            lookups.put(key, (count == null) ? 1 : count + 1);
+            return super.getSection(code, number, sectionId);
+        }
+    }
+}
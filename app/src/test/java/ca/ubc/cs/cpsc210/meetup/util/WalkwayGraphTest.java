@@ -0,0 +1,80 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class WalkwayGraphTest {
+
+    private static final String GRAPH =
+            "# Three nodes in a line and one on its own\n"
+            + "node|a|49.260000|-123.250000\n"
+            + "node|b|49.261000|-123.250000\n"
+            + "node|c|49.261000|-123.252000\n"
+            + "node|d|49.270000|-123.260000\n"
+            + "\n"
+            + "way|a|b|c\n";
+
+    @Test
+    public void testLoad() throws IOException {
+        WalkwayGraph graph = WalkwayGraph.load(new StringReader(GRAPH));
+        assertEquals(4, graph.getNumberOfNodes());
+        assertEquals(49261000, graph.getLatitudeE6(1));
+        assertEquals(-123252000, graph.getLongitudeE6(2));
+        // b is joined to both a and c, d to nothing
+        assertEquals(1, graph.getEndOfEdges(0) - graph.getFirstEdge(0));
+        assertEquals(2, graph.getEndOfEdges(1) - graph.getFirstEdge(1));
+        assertEquals(0, graph.getEndOfEdges(3) - graph.getFirstEdge(3));
+    }
+
+    @Test
+    public void testEdgesGoBothWaysWithHaversineLength() throws IOException {
+        WalkwayGraph graph = WalkwayGraph.load(new StringReader(GRAPH));
+        int edge = graph.getFirstEdge(0);
+        assertEquals(1, graph.getEdgeTarget(edge));
+        assertEquals(graph.distance(0, 1), graph.getEdgeLength(edge), 0.01);
+        boolean backToA = false;
+        for (int e = graph.getFirstEdge(1); e < graph.getEndOfEdges(1); e++)
+            backToA |= graph.getEdgeTarget(e) == 0;
+        assertEquals(true, backToA);
+        assertEquals(111.2, graph.distance(0, 1), 0.5);
+    }
+
+    @Test
+    public void testNearestNode() throws IOException {
+        WalkwayGraph graph = WalkwayGraph.load(new StringReader(GRAPH));
+        assertEquals(0, graph.nearestNode(new LatLon(49.2601, -123.2501)));
+        assertEquals(2, graph.nearestNode(new LatLon(49.2612, -123.2525)));
+        assertEquals(-1, WalkwayGraph.load(new StringReader("")).nearestNode(new LatLon(49.26, -123.25)));
+    }
+
+    @Test
+    public void testRepeatedNodeInWayIsNotAnEdge() throws IOException {
+        WalkwayGraph graph = WalkwayGraph.load(new StringReader(
+                "node|a|49.26|-123.25\nnode|b|49.261|-123.25\nway|a|a|b\n"));
+        assertEquals(1, graph.getEndOfEdges(0) - graph.getFirstEdge(0));
+    }
+
+    @Test
+    public void testRejectsMalformedFiles() {
+        assertRejected("node|a|49.26\n");
+        assertRejected("node|a|north|-123.25\n");
+        assertRejected("node|a|49.26|-123.25\nnode|a|49.27|-123.25\n");
+        assertRejected("node|a|49.26|-123.25\nway|a|b\n");
+        assertRejected("node|a|49.26|-123.25\nway|a\n");
+        assertRejected("path|a|b\n");
+    }
+
+    private static void assertRejected(String text) {
+        try {
+            WalkwayGraph.load(new StringReader(text));
+            fail("Loaded " + text);
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
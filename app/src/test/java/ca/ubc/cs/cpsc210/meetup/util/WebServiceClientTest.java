@@ -0,0 +1,395 @@
+package ca.ubc.cs.cpsc210.meetup.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WebServiceClientTest {
+
+    // How long to give callers to line up behind a call before letting it finish
+    private static final long SETTLE_MILLIS = 300;
+
+    private HttpServer server;
+    private String base;
+    private ExecutorService callers;
+    private WebServiceClient client;
+
+    // Requests the server has had, and the latch that holds their responses back
+    private AtomicInteger hits;
+    private CountDownLatch release;
+    private volatile int status;
+
+    // Requests the server is working on, the most it has had at once, and the client
+    // ports it has seen, which tell the connections apart
+    private AtomicInteger inFlight;
+    private int mostInFlight;
+    private Set<Integer> ports;
+
+    // Responses the server sent gzipped
+    private AtomicInteger gzipped;
+
+    @Before
+    public void setUp() throws IOException {
+        hits = new AtomicInteger();
+        release = new CountDownLatch(1);
+        status = 200;
+        inFlight = new AtomicInteger();
+        mostInFlight = 0;
+        ports = Collections.synchronizedSet(new HashSet<Integer>());
+        gzipped = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                if (!path.startsWith("/free"))
+                    hits.incrementAndGet();
+                ports.add(exchange.getRemoteAddress().getPort());
+                int now = inFlight.incrementAndGet();
+                synchronized (WebServiceClientTest.this) {
+                    mostInFlight = Math.max(mostInFlight, now);
+                }
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Done before the response goes out, so the client cannot have started another call yet
+                inFlight.decrementAndGet();
+
+                byte[] body = ("body of " + exchange.getRequestURI()).getBytes("UTF-8");
+                String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (path.startsWith("/gzip") && accepted != null && accepted.contains("gzip")) {
+                    ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(zipped);
+                    gzip.write(body);
+                    gzip.close();
+                    body = zipped.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    gzipped.incrementAndGet();
+                }
+                exchange.sendResponseHeaders(status, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        callers = Executors.newCachedThreadPool();
+        client = new WebServiceClient();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetString() throws IOException {
+        release.countDown();
+        assertEquals("body of /getStudent?id=12345", client.getString(base + "/getStudent?id=12345"));
+    }
+
+    @Test
+    public void testGzipBodyIsDecompressed() throws IOException {
+        release.countDown();
+        assertEquals("body of /gzip/route", client.getString(base + "/gzip/route"));
+        assertEquals("body of /gzip/route", client.get(base + "/gzip/route", new Text()));
+        assertEquals(2, gzipped.get());
+    }
+
+    @Test
+    public void testErrorStatus() {
+        release.countDown();
+        for (int error : new int[] { 302, 404, 500 }) {
+            status = error;
+            try {
+                client.getString(base + "/missing");
+                fail("Expected IOException for HTTP " + error);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("HTTP " + error));
+            }
+        }
+    }
+
+    @Test
+    public void testHandlerFailurePropagates() {
+        release.countDown();
+        final IOException badBody = new IOException("bad body");
+        try {
+            client.get(base + "/route", new WebServiceClient.ResponseHandler<Object>() {
+                @Override
+                public Object handle(Reader body) throws IOException {
+                    throw badBody;
+                }
+            });
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertSame(badBody, e);
+        }
+        final IllegalStateException bug = new IllegalStateException("bug");
+        try {
+            client.get(base + "/route", new WebServiceClient.ResponseHandler<Object>() {
+                @Override
+                public Object handle(Reader body) {
+                    throw bug;
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertSame(bug, e);
+        } catch (IOException e) {
+            fail("Handler exception was wrapped");
+        }
+    }
+
+    @Test
+    public void testFailuresGiveBackTheirTurn() throws Exception {
+        release.countDown();
+        status = 500;
+        for (int i = 0; i < 2 * WebServiceClient.MAX_CONCURRENT_REQUESTS; i++) {
+            try {
+                client.getString(base + "/broken");
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+        status = 200;
+        // Would wait forever if the failed calls had kept their turns
+        Future<String> after = callers.submit(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return client.getString(base + "/after");
+            }
+        });
+        assertEquals("body of /after", after.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConnectionIsReused() throws IOException {
+        release.countDown();
+        for (int i = 0; i < 5; i++)
+            client.getString(base + "/gzip/route?i=" + i);
+        status = 404;
+        try {
+            client.getString(base + "/missing");
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+        status = 200;
+        client.getString(base + "/route");
+        assertEquals(1, ports.size());
+    }
+
+    @Test
+    public void testCallsAreCapped() throws Exception {
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (int i = 0; i < 3 * WebServiceClient.MAX_CONCURRENT_REQUESTS; i++) {
+            final String url = base + "/free" + i;
+            results.add(callers.submit(new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return client.getString(url);
+                }
+            }));
+        }
+        Thread.sleep(SETTLE_MILLIS);
+        // As many as may run are running, and the rest are waiting for a turn
+        assertEquals(WebServiceClient.MAX_CONCURRENT_REQUESTS, inFlight.get());
+        release.countDown();
+        for (int i = 0; i < results.size(); i++)
+            assertEquals("body of /free" + i, results.get(i).get(10, TimeUnit.SECONDS));
+        synchronized (this) {
+            assertEquals(WebServiceClient.MAX_CONCURRENT_REQUESTS, mostInFlight);
+        }
+    }
+
+    @Test
+    public void testIdenticalSharedCallsGoOutOnce() throws Exception {
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 8; i++)
+            results.add(callers.submit(shared("route", base + "/route?from=1&to=2")));
+        Thread.sleep(SETTLE_MILLIS);
+        release.countDown();
+
+        Object first = results.get(0).get();
+        for (Future<Object> result : results)
+            assertSame(first, result.get());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testDifferentKeysAreNotShared() throws Exception {
+        Future<Object> a = callers.submit(shared("route", base + "/route"));
+        Future<Object> b = callers.submit(shared("places", base + "/route"));
+        Thread.sleep(SETTLE_MILLIS);
+        release.countDown();
+        assertTrue(a.get() != b.get());
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testPlainCallsAreNotShared() throws Exception {
+        Callable<String> plain = new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return client.getString(base + "/getStudent");
+            }
+        };
+        Future<String> a = callers.submit(plain);
+        Future<String> b = callers.submit(plain);
+        Thread.sleep(SETTLE_MILLIS);
+        release.countDown();
+        assertEquals(a.get(), b.get());
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testFailureIsShared() throws Exception {
+        status = 500;
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 4; i++)
+            results.add(callers.submit(shared("route", base + "/broken")));
+        Thread.sleep(SETTLE_MILLIS);
+        release.countDown();
+        for (Future<Object> result : results) {
+            try {
+                result.get();
+                fail("A failed call gave a result");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testWaiterRetriesWhenOwnerIsInterrupted() throws Exception {
+        // Take every permit with calls the server holds, so the next call waits for one
+        List<Future<String>> blockers = new ArrayList<Future<String>>();
+        for (int i = 0; i < WebServiceClient.MAX_CONCURRENT_REQUESTS; i++) {
+            final String url = base + "/free" + i;
+            blockers.add(callers.submit(new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return client.getString(url);
+                }
+            }));
+        }
+        Thread.sleep(SETTLE_MILLIS);
+        Future<Object> owner = callers.submit(shared("route", base + "/shared"));
+        Thread.sleep(SETTLE_MILLIS);
+        Future<Object> waiter = callers.submit(shared("route", base + "/shared"));
+        Thread.sleep(SETTLE_MILLIS);
+
+        // The owner is still waiting for a permit, so its call never reaches the server
+        owner.cancel(true);
+        release.countDown();
+        assertEquals("body of /shared", waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(1, hits.get());
+        for (Future<String> blocker : blockers)
+            blocker.get();
+    }
+
+    @Test
+    public void testNormaliseSchemeHostAndPort() {
+        assertEquals("http://example.com/route", WebServiceClient.normalise("HTTP://Example.COM:80/route"));
+        assertEquals("https://example.com/", WebServiceClient.normalise("https://example.com:443"));
+        assertEquals("http://example.com:8081/getStudent", WebServiceClient.normalise("http://example.com:8081/getStudent"));
+    }
+
+    @Test
+    public void testNormaliseKeepsPathCase() {
+        assertEquals("http://example.com/Route/Path", WebServiceClient.normalise("http://EXAMPLE.com/Route/Path"));
+    }
+
+    @Test
+    public void testNormaliseDropsFragment() {
+        assertEquals("http://example.com/route?a=1", WebServiceClient.normalise("http://example.com/route?a=1#top"));
+    }
+
+    @Test
+    public void testNormaliseSortsParametersByName() {
+        assertEquals("http://example.com/route?from=1,2&routeType=pedestrian&to=3,4",
+                WebServiceClient.normalise("http://example.com/route?to=3,4&routeType=pedestrian&from=1,2"));
+    }
+
+    @Test
+    public void testNormaliseKeepsOrderOfRepeatedNames() {
+        assertEquals("http://example.com/route?a=0&locations=b&locations=a&z=9",
+                WebServiceClient.normalise("http://example.com/route?z=9&locations=b&a=0&locations=a"));
+        assertEquals("http://example.com/route?locations=a&locations=b",
+                WebServiceClient.normalise("http://example.com/route?locations=a&locations=b"));
+    }
+
+    @Test
+    public void testNormaliseParameterWithoutValue() {
+        assertEquals("http://example.com/?a=1&flag&flag=2",
+                WebServiceClient.normalise("http://example.com/?flag&flag=2&a=1"));
+    }
+
+    @Test
+    public void testNormaliseLeavesOddUrlsAlone() {
+        assertEquals("not a url", WebServiceClient.normalise("not a url"));
+        assertEquals("/relative?b=2&a=1", WebServiceClient.normalise("/relative?b=2&a=1"));
+        assertEquals("mailto:someone@example.com", WebServiceClient.normalise("mailto:someone@example.com"));
+    }
+
+    private Callable<Object> shared(final String key, final String url) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws IOException {
+                return client.getShared(key, url, new Text());
+            }
+        };
+    }
+
+    /*
+     * Read the body as text, a new String each call so that shared results can be told apart
+     */
+    private static class Text implements WebServiceClient.ResponseHandler<Object> {
+        @Override
+        public Object handle(Reader body) throws IOException {
+            StringBuilder text = new StringBuilder();
+            int c;
+            while ((c = body.read()) != -1)
+                text.append((char) c);
+            return new String(text.toString());
+        }
+    }
+}